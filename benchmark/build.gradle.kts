@@ -0,0 +1,49 @@
+/*
+ * JMH harnesses for the scalar and table UDFs.
+ *
+ * Run with `./gradlew :benchmark:jmh`. Results (ops/s plus the GC profiler's
+ * gc.alloc.rate.norm, i.e. bytes allocated per op) end up in build/results/jmh.
+ * Restrict to a single class with `-Pjmh.includes=NestedJsonMapperBenchmark`.
+ */
+plugins {
+    java
+    id("me.champeau.jmh") version "0.7.2"
+}
+
+version = "0.0.1"
+group = "org.example"
+
+repositories {
+    mavenCentral()
+    maven("https://packages.confluent.io/maven/")
+}
+
+dependencies {
+
+    jmhImplementation(project(":scalar"))
+    jmhImplementation(project(":table"))
+
+    // scalar and table declare these as implementation, so they are not on our compile classpath
+    jmhImplementation(libs.bundles.flink)
+    jmhImplementation(libs.bundles.log4j)
+    jmhImplementation(libs.jackson.databind)
+    jmhImplementation(libs.bundles.proto)
+}
+
+java {
+    toolchain {
+        languageVersion = JavaLanguageVersion.of(17)
+    }
+}
+
+jmh {
+    jmhVersion.set("1.37")
+    profilers.add("gc")
+    resultFormat.set("JSON")
+    fork.set(1)
+    warmupIterations.set(3)
+    iterations.set(5)
+    if (project.hasProperty("jmh.includes")) {
+        includes.add(project.property("jmh.includes").toString())
+    }
+}
@@ -0,0 +1,59 @@
+package org.example;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class CountSubstringStatefulBenchmark {
+
+    @Param({"64", "4096"})
+    public int textLength;
+
+    private CountSubstringStateful function;
+    private CountSubstringStateful.CountAccumulator accumulator;
+    private List<CountSubstringStateful.CountAccumulator> sessions;
+    private String text;
+
+    @Setup
+    public void setUp() {
+        function = new CountSubstringStateful();
+        accumulator = function.createAccumulator();
+        text = Payloads.text(textLength);
+        sessions = new ArrayList<>();
+        for (int i = 0; i < 16; i++) {
+            CountSubstringStateful.CountAccumulator session = function.createAccumulator();
+            function.accumulate(session, text, "lane");
+            sessions.add(session);
+        }
+    }
+
+    @Benchmark
+    public CountSubstringStateful.CountAccumulator accumulate() {
+        function.accumulate(accumulator, text, "lane");
+        return accumulator;
+    }
+
+    @Benchmark
+    public CountSubstringStateful.CountAccumulator retract() {
+        function.retract(accumulator, text, "lane");
+        return accumulator;
+    }
+
+    @Benchmark
+    public CountSubstringStateful.CountAccumulator merge() {
+        function.merge(accumulator, sessions);
+        return accumulator;
+    }
+}
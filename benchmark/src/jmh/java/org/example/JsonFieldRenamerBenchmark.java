@@ -0,0 +1,82 @@
+package org.example;
+
+import org.apache.flink.types.Row;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class JsonFieldRenamerBenchmark {
+
+    @Param({"SMALL", "MEDIUM", "LARGE"})
+    public Payloads.JsonSize size;
+
+    private JsonFieldRenamer renamer;
+    private JsonFieldRenamerWithErrors renamerWithErrors;
+    private String json;
+    private String truncatedJson;
+    private byte[] jsonBytes;
+    private Map<String, String> renames;
+
+    @Setup
+    public void setUp() {
+        renamer = new JsonFieldRenamer();
+        renamerWithErrors = new JsonFieldRenamerWithErrors();
+        json = Payloads.json(size);
+        truncatedJson = json.substring(0, json.length() / 2);
+        jsonBytes = json.getBytes(StandardCharsets.UTF_8);
+        renames = new HashMap<>();
+        renames.put("/AMS/YBRV_PMO07", "shipmentDocument");
+        renames.put("MANDT", "mandt");
+        renames.put("SHIP_TO", "shipTo");
+    }
+
+    @Benchmark
+    public String renameHit() {
+        return renamer.eval(json, "/AMS/YBRV_PMO07", "shipmentDocument");
+    }
+
+    @Benchmark
+    public String renameChained() {
+        return renamer.eval(renamer.eval(renamer.eval(json, "/AMS/YBRV_PMO07", "shipmentDocument"), "MANDT", "mandt"), "SHIP_TO", "shipTo");
+    }
+
+    @Benchmark
+    public String renameMap() {
+        return renamer.eval(json, renames);
+    }
+
+    @Benchmark
+    public byte[] renameMapBytes() {
+        return renamer.eval(jsonBytes, renames);
+    }
+
+    @Benchmark
+    public String renameMiss() {
+        return renamer.eval(json, "notThere", "stillNotThere");
+    }
+
+    /** Input without the field is still checked by the _WITH_ERRORS variant. */
+    @Benchmark
+    public Row renameMissWithErrors() {
+        return renamerWithErrors.eval(json, "notThere", "stillNotThere");
+    }
+
+    /** Each invalid row costs a Jackson exception, stack trace included. */
+    @Benchmark
+    public Row renameInvalidWithErrors() {
+        return renamerWithErrors.eval(truncatedJson, "/AMS/YBRV_PMO07", "shipmentDocument");
+    }
+}
@@ -0,0 +1,51 @@
+package org.example;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class NestedJsonMapperBenchmark {
+
+    @Param({"SMALL", "MEDIUM", "LARGE", "DEEP"})
+    public String payload;
+
+    @Param({"TREE", "STREAMING"})
+    public NestedJsonMapper.Mode mode;
+
+    private NestedJsonMapper mapper;
+    private Map<String, String> mappings;
+    private String json;
+    private byte[] jsonBytes;
+
+    @Setup
+    public void setUp() {
+        mapper = new NestedJsonMapper(mode);
+        mappings = Payloads.fieldMappings();
+        json = "DEEP".equals(payload)
+                ? Payloads.deeplyNestedJson(64)
+                : Payloads.json(Payloads.JsonSize.valueOf(payload));
+        jsonBytes = json.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public String eval() {
+        return mapper.eval(json, mappings);
+    }
+
+    @Benchmark
+    public byte[] evalBytes() {
+        return mapper.eval(jsonBytes, mappings);
+    }
+}
@@ -0,0 +1,160 @@
+package org.example;
+
+import org.apache.flink.types.Row;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Deterministic payload generators shared by the benchmarks.
+ *
+ * JSON documents are shaped like the shipment documents in NestedJsonMapperTest:
+ * UPPER_SNAKE keys, string values, nested arrays of objects.
+ */
+public final class Payloads {
+
+    private static final String[] FIELD_NAMES = {
+            "MANDT", "SHIPMENT_NUMBER", "DELIVERY_TYPE", "APPOINTMENT_DATE", "APPOINTMENT_TIME",
+            "SHIPPING_POINT", "SHIP_TO", "DELIVERY_CREATED_ON", "DELIVERY_NUMBER", "DELIVERY_ITEM",
+            "MATERIAL_NUMBER", "MATERIAL_DESCRIPTION", "QUANTITY", "UNIT_OF_MEASURE", "FISCAL_NOTE",
+            "TRACKAGE_ID", "VENDOR_NUMBER", "VENDOR_NAME", "CITY", "POSTAL_CODE"
+    };
+
+    private static final String[] WORDS = {
+            "vehicle", "stay", "lane", "entry", "exit", "tenant", "customer", "waiting", "service",
+            "inspection", "2024-01-01T10:00:00Z", "ABC-123", "VIN123456789", "e-mail", "n/a", "42"
+    };
+
+    private Payloads() {
+    }
+
+    public enum JsonSize {
+        /** a single flat object, ~300 bytes */
+        SMALL(1, 1),
+        /** ~5 KB, two levels of nesting */
+        MEDIUM(16, 2),
+        /** ~100 KB, in the 50-200 KB range of our event payloads */
+        LARGE(18, 3);
+
+        private final int itemsPerLevel;
+        private final int levels;
+
+        JsonSize(int itemsPerLevel, int levels) {
+            this.itemsPerLevel = itemsPerLevel;
+            this.levels = levels;
+        }
+    }
+
+    public static String json(JsonSize size) {
+        Random random = new Random(42);
+        StringBuilder sb = new StringBuilder();
+        sb.append("{\"/AMS/YBRV_PMO07\":[");
+        appendObject(sb, random, size.itemsPerLevel, size.levels);
+        sb.append("]}");
+        return sb.toString();
+    }
+
+    /**
+     * An object nested {@code depth} levels deep, each level carrying a few scalar fields.
+     */
+    public static String deeplyNestedJson(int depth) {
+        Random random = new Random(42);
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < depth; i++) {
+            sb.append('{');
+            appendScalarFields(sb, random, 3);
+            sb.append(",\"LIPS\":");
+        }
+        sb.append("null");
+        for (int i = 0; i < depth; i++) {
+            sb.append('}');
+        }
+        return sb.toString();
+    }
+
+    /**
+     * UPPER_SNAKE to lowerCamel mappings for every key the generators emit.
+     */
+    public static Map<String, String> fieldMappings() {
+        Map<String, String> mappings = new HashMap<>();
+        mappings.put("/AMS/YBRV_PMO07", "shipmentDocument");
+        mappings.put("LIPS", "deliveryItems");
+        for (String name : FIELD_NAMES) {
+            mappings.put(name, toCamelCase(name));
+        }
+        return mappings;
+    }
+
+    /**
+     * Free text of roughly {@code length} characters with punctuation sprinkled in.
+     */
+    public static String text(int length) {
+        Random random = new Random(42);
+        StringBuilder sb = new StringBuilder(length + 32);
+        while (sb.length() < length) {
+            sb.append(WORDS[random.nextInt(WORDS.length)]);
+            sb.append(random.nextInt(8) == 0 ? ", " : " ");
+        }
+        return sb.toString();
+    }
+
+    /**
+     * A fully populated VehicleStay row matching VehicleStayProtobufSerializer's input type.
+     */
+    public static Row vehicleStay(int seed) {
+        Row objectRow = Row.of("alias-" + seed, "vehicle.stay", "2024-01-01T10:00:00Z", "2024-01-01T11:00:00Z", "corr-" + seed);
+        Row vehicleRow = Row.of("VIN" + (100000000 + seed), "XYZ-" + seed, "Jane Smith", "Sedan", "Lane-5", "Model-Y",
+                "2024-01-01T09:30:00Z", "ALT-" + seed);
+        Row trackableObjectRow = Row.of("track-alias-" + seed, "track.vehicle", "2024-01-01T09:00:00Z", "2024-01-01T10:30:00Z",
+                "track-corr-" + seed);
+        Row trackableVehicleRow = Row.of(trackableObjectRow, "2024-01-01T10:15:00Z", "tenant-456", vehicleRow);
+        return Row.of(
+                objectRow, trackableVehicleRow, "tenant-456",
+                "2024-01-01T07:45:00Z", "Entry-Lane-X", "Lane-X", "2024-01-01T08:00:00Z",
+                "Lane-Y", "2024-01-01T14:30:00Z", "2024-01-01T14:35:00Z", "Exit-Lane-Y",
+                seed % 2 == 0, "Inspection", seed % 3 == 0 ? null : Boolean.TRUE,
+                "2024-01-01T14:40:00Z", "External-Y", "2024-01-01T07:40:00Z", "External-X");
+    }
+
+    private static void appendObject(StringBuilder sb, Random random, int itemsPerLevel, int levels) {
+        sb.append('{');
+        appendScalarFields(sb, random, FIELD_NAMES.length / 2);
+        if (levels > 1) {
+            sb.append(",\"LIPS\":[");
+            for (int i = 0; i < itemsPerLevel; i++) {
+                if (i > 0) {
+                    sb.append(',');
+                }
+                appendObject(sb, random, itemsPerLevel, levels - 1);
+            }
+            sb.append(']');
+        }
+        sb.append('}');
+    }
+
+    private static void appendScalarFields(StringBuilder sb, Random random, int count) {
+        int offset = random.nextInt(FIELD_NAMES.length);
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                sb.append(',');
+            }
+            sb.append('"').append(FIELD_NAMES[(offset + i) % FIELD_NAMES.length]).append("\":\"")
+                    .append(WORDS[random.nextInt(WORDS.length)]).append('"');
+        }
+    }
+
+    private static String toCamelCase(String upperSnake) {
+        StringBuilder sb = new StringBuilder();
+        boolean upper = false;
+        for (char c : upperSnake.toCharArray()) {
+            if (c == '_') {
+                upper = true;
+            } else {
+                sb.append(upper ? c : Character.toLowerCase(c));
+                upper = false;
+            }
+        }
+        return sb.toString();
+    }
+}
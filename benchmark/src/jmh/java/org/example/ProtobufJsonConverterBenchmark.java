@@ -0,0 +1,48 @@
+package org.example;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class ProtobufJsonConverterBenchmark {
+
+    private static final String VEHICLE_STAY = "vehicle.objects.VehicleStay";
+
+    private ProtobufToJsonConverter toJson;
+    private JsonToProtobufConverter toProtobuf;
+    private byte[][] messages;
+    private String[] jsons;
+    private int i;
+
+    @Setup
+    public void setUp() {
+        toJson = new ProtobufToJsonConverter();
+        toProtobuf = new JsonToProtobufConverter();
+        VehicleStayProtobufSerializer serializer = new VehicleStayProtobufSerializer();
+        messages = new byte[64][];
+        jsons = new String[messages.length];
+        for (int j = 0; j < messages.length; j++) {
+            messages[j] = serializer.eval(Payloads.vehicleStay(j));
+            jsons[j] = toJson.eval(messages[j], VEHICLE_STAY);
+        }
+    }
+
+    @Benchmark
+    public String protobufToJson() {
+        return toJson.eval(messages[i++ & (messages.length - 1)], VEHICLE_STAY);
+    }
+
+    @Benchmark
+    public byte[] jsonToProtobuf() {
+        return toProtobuf.eval(jsons[i++ & (jsons.length - 1)], VEHICLE_STAY);
+    }
+}
@@ -0,0 +1,66 @@
+package org.example;
+
+import org.apache.flink.types.Row;
+import org.apache.flink.util.Collector;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class TextExtractorFunctionBenchmark {
+
+    @Param({"80", "4096"})
+    public int textLength;
+
+    private TextExtractorFunction function;
+    private String text;
+
+    @Setup
+    public void setUp(Blackhole blackhole) {
+        function = new TextExtractorFunction();
+        function.setCollector(new BlackholeCollector(blackhole));
+        text = Payloads.text(textLength);
+    }
+
+    @Benchmark
+    public void evalDefaultTokenizer() {
+        function.eval(text);
+    }
+
+    @Benchmark
+    public void evalWithRegex() {
+        function.eval(text, "[\\s,]+");
+    }
+
+    @Benchmark
+    public void evalWithLiteralDelimiter() {
+        function.eval(text, ", ");
+    }
+
+    private static final class BlackholeCollector implements Collector<Row> {
+        private final Blackhole blackhole;
+
+        private BlackholeCollector(Blackhole blackhole) {
+            this.blackhole = blackhole;
+        }
+
+        @Override
+        public void collect(Row record) {
+            blackhole.consume(record);
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package org.example;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class TshirtSizingIsSmallerBenchmark {
+
+    private static final String[] SIZES = {"XS", "small", "Medium", "l", "X-Large", "XXL", "unknown"};
+    // sizes of the 'extended' ladder from size-ladders.properties
+    private static final String[] EXTENDED_SIZES = {"2XS", "xs", "Medium", "L", "xxl", "3XL", "XXXX-Large", "unknown"};
+
+    private TshirtSizingIsSmaller function;
+    private int i;
+
+    @Setup
+    public void setUp() {
+        function = new TshirtSizingIsSmaller();
+    }
+
+    @Benchmark
+    public boolean eval() {
+        i++;
+        return function.eval(SIZES[i % SIZES.length], SIZES[(i + 3) % SIZES.length]);
+    }
+
+    @Benchmark
+    public boolean evalLadder() {
+        i++;
+        return function.eval(EXTENDED_SIZES[i % EXTENDED_SIZES.length],
+                EXTENDED_SIZES[(i + 3) % EXTENDED_SIZES.length], "extended");
+    }
+
+    @Benchmark
+    public Integer ordinal() {
+        i++;
+        return function.eval(SIZES[i % SIZES.length]);
+    }
+}
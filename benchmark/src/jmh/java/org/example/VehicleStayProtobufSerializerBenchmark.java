@@ -0,0 +1,61 @@
+package org.example;
+
+import org.apache.flink.types.Row;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class VehicleStayProtobufSerializerBenchmark {
+
+    private static final String[] TENANT_ALIAS = {"tenant_alias"};
+
+    private VehicleStayProtobufSerializer serializer;
+    private VehicleStayProtobufDeserializer deserializer;
+    private VehicleStayListProtobufSerializer listSerializer;
+    private Row[] rows;
+    private byte[][] messages;
+    private int i;
+
+    @Setup
+    public void setUp() {
+        serializer = new VehicleStayProtobufSerializer();
+        deserializer = new VehicleStayProtobufDeserializer();
+        listSerializer = new VehicleStayListProtobufSerializer();
+        rows = new Row[64];
+        messages = new byte[rows.length][];
+        for (int j = 0; j < rows.length; j++) {
+            rows[j] = Payloads.vehicleStay(j);
+            messages[j] = serializer.eval(rows[j]);
+        }
+    }
+
+    @Benchmark
+    public byte[] eval() {
+        return serializer.eval(rows[i++ & (rows.length - 1)]);
+    }
+
+    @Benchmark
+    public Row deserialize() {
+        return deserializer.eval(messages[i++ & (messages.length - 1)]);
+    }
+
+    @Benchmark
+    public Row deserializeTenantAlias() {
+        return deserializer.eval(messages[i++ & (messages.length - 1)], TENANT_ALIAS);
+    }
+
+    /** All 64 rows as one VehicleStayList; compare against 64 times {@link #eval}. */
+    @Benchmark
+    public byte[] serializeList() {
+        return listSerializer.eval(rows);
+    }
+}
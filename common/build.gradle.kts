@@ -0,0 +1,40 @@
+/*
+ * Helpers shared by the scalar and table UDFs.
+ *
+ * Not deployed on its own: scalar and table bundle its classes into their shadow jars.
+ */
+plugins {
+    `java-library`
+    `java-test-fixtures`
+}
+
+version = "0.0.1"
+group = "org.example"
+
+repositories {
+    mavenCentral()
+    maven("https://packages.confluent.io/maven/")
+}
+
+dependencies {
+
+    implementation(libs.bundles.flink)
+    implementation(libs.bundles.log4j)
+
+    // TestFunctionContext, shared with the scalar tests
+    testFixturesImplementation(libs.bundles.flink)
+
+    testImplementation(libs.junit.jupiter)
+
+    testRuntimeOnly("org.junit.platform:junit-platform-launcher")
+}
+
+java {
+    toolchain {
+        languageVersion = JavaLanguageVersion.of(17)
+    }
+}
+
+tasks.named<Test>("test") {
+    useJUnitPlatform()
+}
@@ -0,0 +1,334 @@
+package org.example;
+
+import org.apache.flink.table.functions.FunctionContext;
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.Logger;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Per-row logging for UDFs that cannot flood the log pipeline: messages are sampled at a configured
+ * rate and then capped by a token bucket. Dropped messages are counted per level and message
+ * template and reported as "Suppressed N similar messages: ..." once per summary interval.
+ *
+ * Configured through job parameters under a function-specific prefix, e.g.
+ * {@code string-logging.log.rate-limit}, falling back to the same key under {@code udf}, e.g.
+ * {@code udf.log.rate-limit}. Create it in open() and close it in close(), which reports the
+ * messages suppressed since the last summary. Nothing is dropped unless a sample rate or rate limit
+ * is configured.
+ *
+ * Sampling and rate limiting run on the function's thread. The summaries are written by one daemon
+ * thread shared by all open loggers, which only exists while any of them is open. A logger created
+ * by {@link #withDefaults} has no timer and reports its suppressed messages in close() only.
+ *
+ * The overloads with up to two parameters do not allocate a parameter array, so a message that is
+ * suppressed costs a counter increment.
+ */
+public final class SampledLogger implements AutoCloseable {
+
+    /** Prefix of the job parameters that apply to every function without its own setting. */
+    public static final String DEFAULT_PREFIX = "udf";
+
+    /** Job parameter suffixes, after a function-specific prefix such as {@code string-logging}. */
+    public static final String SAMPLE_RATE = ".log.sample-rate";
+    public static final String RATE_LIMIT = ".log.rate-limit";
+    public static final String BURST = ".log.burst";
+    public static final String SUMMARY_INTERVAL = ".log.summary-interval-ms";
+
+    // fraction of the messages that are logged, before rate limiting
+    private static final double DEFAULT_SAMPLE_RATE = 1.0;
+    // messages per second, 0 for no limit
+    private static final double DEFAULT_RATE_LIMIT = 0;
+    private static final long DEFAULT_SUMMARY_INTERVAL_MILLIS = 60_000;
+
+    // writes the summaries of all open loggers, created by the first and shut down by the last
+    private static ScheduledThreadPoolExecutor timer;
+    private static int timed;
+
+    private final Logger logger;
+    private final double sampleRate;
+    private final double tokensPerNano;
+    private final double burst;
+    private final LongSupplier nanoClock;
+
+    private long seen;
+    private double tokens;
+    private long lastRefill;
+
+    // suppressed counts by level and message template, reset by the summaries
+    private final Map<Level, Map<String, AtomicLong>> suppressed = new ConcurrentHashMap<>();
+    private ScheduledFuture<?> summaries;
+
+    SampledLogger(Logger logger, double sampleRate, double rateLimit, double burst, LongSupplier nanoClock) {
+        if (sampleRate < 0 || sampleRate > 1) {
+            throw new IllegalArgumentException("Sample rate must be between 0 and 1: " + sampleRate);
+        }
+        if (rateLimit < 0 || burst < 1) {
+            throw new IllegalArgumentException("Invalid rate limit " + rateLimit + " with burst " + burst);
+        }
+        this.logger = logger;
+        this.sampleRate = sampleRate;
+        this.tokensPerNano = rateLimit / TimeUnit.SECONDS.toNanos(1);
+        this.burst = burst;
+        this.nanoClock = nanoClock;
+        this.tokens = burst;
+        this.lastRefill = nanoClock.getAsLong();
+    }
+
+    /**
+     * @return a logger configured by the job parameters under {@code prefix}, writing summaries until
+     *         it is closed
+     */
+    public static SampledLogger open(FunctionContext context, String prefix, Logger logger) {
+        double rateLimit = parameter(context, prefix, RATE_LIMIT, DEFAULT_RATE_LIMIT);
+        SampledLogger sampledLogger = new SampledLogger(logger,
+                parameter(context, prefix, SAMPLE_RATE, DEFAULT_SAMPLE_RATE),
+                rateLimit,
+                parameter(context, prefix, BURST, Math.max(1, rateLimit)),
+                System::nanoTime);
+        sampledLogger.summarizeEvery((long) parameter(context, prefix, SUMMARY_INTERVAL, DEFAULT_SUMMARY_INTERVAL_MILLIS));
+        return sampledLogger;
+    }
+
+    /**
+     * @return a logger with the default settings, for functions used without open()
+     */
+    public static SampledLogger withDefaults(Logger logger) {
+        return new SampledLogger(logger, DEFAULT_SAMPLE_RATE, DEFAULT_RATE_LIMIT, Math.max(1, DEFAULT_RATE_LIMIT),
+                System::nanoTime);
+    }
+
+    private static double parameter(FunctionContext context, String prefix, String suffix, double defaultValue) {
+        String value = context.getJobParameter(prefix + suffix, null);
+        if (value == null) {
+            value = context.getJobParameter(DEFAULT_PREFIX + suffix, null);
+        }
+        return value == null ? defaultValue : Double.parseDouble(value.trim());
+    }
+
+    /**
+     * Writes the summaries on the shared timer thread every {@code intervalMillis}.
+     */
+    void summarizeEvery(long intervalMillis) {
+        if (intervalMillis <= 0) {
+            throw new IllegalArgumentException("Summary interval must be positive: " + intervalMillis);
+        }
+        synchronized (SampledLogger.class) {
+            if (timer == null) {
+                timer = new ScheduledThreadPoolExecutor(1, runnable -> {
+                    Thread thread = new Thread(runnable, "udf-log-summaries");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+                timer.setRemoveOnCancelPolicy(true);
+            }
+            timed++;
+            summaries = timer.scheduleAtFixedRate(this::logSummaries, intervalMillis, intervalMillis,
+                    TimeUnit.MILLISECONDS);
+        }
+    }
+
+    public boolean isEnabled(Level level) {
+        return logger.isEnabled(level);
+    }
+
+    public void trace(String message) {
+        log(Level.TRACE, message);
+    }
+
+    public void trace(String message, Object param) {
+        log(Level.TRACE, message, param);
+    }
+
+    public void trace(String message, Object param1, Object param2) {
+        log(Level.TRACE, message, param1, param2);
+    }
+
+    public void trace(String message, Object... params) {
+        log(Level.TRACE, message, params);
+    }
+
+    public void debug(String message) {
+        log(Level.DEBUG, message);
+    }
+
+    public void debug(String message, Object param) {
+        log(Level.DEBUG, message, param);
+    }
+
+    public void debug(String message, Object param1, Object param2) {
+        log(Level.DEBUG, message, param1, param2);
+    }
+
+    public void debug(String message, Object... params) {
+        log(Level.DEBUG, message, params);
+    }
+
+    public void info(String message) {
+        log(Level.INFO, message);
+    }
+
+    public void info(String message, Object param) {
+        log(Level.INFO, message, param);
+    }
+
+    public void info(String message, Object param1, Object param2) {
+        log(Level.INFO, message, param1, param2);
+    }
+
+    public void info(String message, Object... params) {
+        log(Level.INFO, message, params);
+    }
+
+    public void warn(String message) {
+        log(Level.WARN, message);
+    }
+
+    public void warn(String message, Object param) {
+        log(Level.WARN, message, param);
+    }
+
+    public void warn(String message, Object param1, Object param2) {
+        log(Level.WARN, message, param1, param2);
+    }
+
+    public void warn(String message, Object... params) {
+        log(Level.WARN, message, params);
+    }
+
+    public void error(String message) {
+        log(Level.ERROR, message);
+    }
+
+    public void error(String message, Object param) {
+        log(Level.ERROR, message, param);
+    }
+
+    public void error(String message, Object param1, Object param2) {
+        log(Level.ERROR, message, param1, param2);
+    }
+
+    public void error(String message, Object... params) {
+        log(Level.ERROR, message, params);
+    }
+
+    public void fatal(String message) {
+        log(Level.FATAL, message);
+    }
+
+    public void fatal(String message, Object param) {
+        log(Level.FATAL, message, param);
+    }
+
+    public void fatal(String message, Object param1, Object param2) {
+        log(Level.FATAL, message, param1, param2);
+    }
+
+    public void fatal(String message, Object... params) {
+        log(Level.FATAL, message, params);
+    }
+
+    public void log(Level level, String message) {
+        if (admit(level, message)) {
+            logger.log(level, message);
+        }
+    }
+
+    public void log(Level level, String message, Object param) {
+        if (admit(level, message)) {
+            logger.log(level, message, param);
+        }
+    }
+
+    public void log(Level level, String message, Object param1, Object param2) {
+        if (admit(level, message)) {
+            logger.log(level, message, param1, param2);
+        }
+    }
+
+    /**
+     * Logs the message unless it is sampled out or over the rate limit, in which case it is only
+     * counted towards the next summary. A trailing Throwable parameter is logged as usual.
+     */
+    public void log(Level level, String message, Object... params) {
+        if (admit(level, message)) {
+            logger.log(level, message, params);
+        }
+    }
+
+    /**
+     * @return whether to log the message now; a message of an enabled level that is not is counted
+     */
+    private boolean admit(Level level, String message) {
+        if (!logger.isEnabled(level)) {
+            return false;
+        }
+        if (sampled() && withinRate()) {
+            return true;
+        }
+        Map<String, AtomicLong> counts = suppressed.get(level);
+        if (counts == null) {
+            counts = suppressed.computeIfAbsent(level, l -> new ConcurrentHashMap<>());
+        }
+        AtomicLong count = counts.get(message);
+        if (count == null) {
+            count = counts.computeIfAbsent(message, m -> new AtomicLong());
+        }
+        count.incrementAndGet();
+        return false;
+    }
+
+    private boolean sampled() {
+        seen++;
+        return sampleRate >= 1 || (long) (seen * sampleRate) != (long) ((seen - 1) * sampleRate);
+    }
+
+    private boolean withinRate() {
+        if (tokensPerNano == 0) {
+            return true;
+        }
+        long now = nanoClock.getAsLong();
+        tokens = Math.min(burst, tokens + (now - lastRefill) * tokensPerNano);
+        lastRefill = now;
+        if (tokens < 1) {
+            return false;
+        }
+        tokens--;
+        return true;
+    }
+
+    /**
+     * Logs how many messages were suppressed per level and template since the last summary.
+     */
+    void logSummaries() {
+        for (Map.Entry<Level, Map<String, AtomicLong>> level : suppressed.entrySet()) {
+            for (Map.Entry<String, AtomicLong> message : level.getValue().entrySet()) {
+                long count = message.getValue().getAndSet(0);
+                if (count > 0) {
+                    logger.log(level.getKey(), "Suppressed {} similar messages: {}", count, message.getKey());
+                }
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        if (summaries != null) {
+            synchronized (SampledLogger.class) {
+                summaries.cancel(false);
+                summaries = null;
+                if (--timed == 0) {
+                    timer.shutdown();
+                    timer = null;
+                }
+            }
+        }
+        logSummaries();
+    }
+}
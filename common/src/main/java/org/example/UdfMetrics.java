@@ -0,0 +1,290 @@
+package org.example;
+
+import org.apache.flink.metrics.Counter;
+import org.apache.flink.metrics.Histogram;
+import org.apache.flink.metrics.HistogramStatistics;
+import org.apache.flink.metrics.MetricGroup;
+import org.apache.flink.metrics.SimpleCounter;
+import org.apache.flink.metrics.groups.UnregisteredMetricsGroup;
+import org.apache.flink.table.functions.FunctionContext;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Metrics of one UDF instance, registered under {@code udf.<name>} in the operator's metric group:
+ * counters of invocations, null inputs and errors, and histograms of the latency, input size and
+ * output size of every n-th invocation. Sizes are bytes for BYTES and characters for STRING values,
+ * table functions report the number of rows they emitted as output size.
+ *
+ * Each instance is updated by its task's thread only, so the counters are plain longs like Flink's
+ * own SimpleCounter, and the clock is only read for the sampled invocations.
+ *
+ * Every invocation that called {@link #start()} has to end in {@link #finish}, {@link #nullInput(long)} or
+ * {@link #error(long)}, early returns included, so that a sampled one is recorded.
+ *
+ * UDFs hold theirs in a {@link Lazy} field, which registers them in open() and falls back to
+ * unregistered metrics when the function is called without open(), e.g. in unit tests.
+ */
+public final class UdfMetrics {
+
+    /** Job parameter with the sampling interval, 0 to only count. */
+    public static final String SAMPLE_INTERVAL_PARAMETER = SampledLogger.DEFAULT_PREFIX + ".metrics.sample-interval";
+
+    public static final String GROUP = "udf";
+    public static final String INVOCATIONS = "invocations";
+    public static final String NULL_INPUTS = "nullInputs";
+    public static final String ERRORS = "errors";
+    public static final String LATENCY = "latencyNanos";
+    public static final String INPUT_SIZE = "inputSize";
+    public static final String OUTPUT_SIZE = "outputSize";
+
+    /** Returned by {@link #start()} for invocations that are not sampled. */
+    public static final long NOT_SAMPLED = Long.MIN_VALUE;
+
+    private static final int DEFAULT_SAMPLE_INTERVAL = 128;
+    private static final int HISTOGRAM_SIZE = 1024;
+
+    private final Counter invocations;
+    private final Counter nullInputs;
+    private final Counter errors;
+    private final Histogram latency;
+    private final Histogram inputSize;
+    private final Histogram outputSize;
+    private final int sampleInterval;
+    private int untilSample;
+
+    UdfMetrics(MetricGroup metricGroup, String name, int sampleInterval) {
+        if (sampleInterval < 0) {
+            throw new IllegalArgumentException("Sample interval must not be negative: " + sampleInterval);
+        }
+        MetricGroup group = metricGroup.addGroup(GROUP, name);
+        this.invocations = group.counter(INVOCATIONS, new SimpleCounter());
+        this.nullInputs = group.counter(NULL_INPUTS, new SimpleCounter());
+        this.errors = group.counter(ERRORS, new SimpleCounter());
+        this.latency = group.histogram(LATENCY, new SampleHistogram(HISTOGRAM_SIZE));
+        this.inputSize = group.histogram(INPUT_SIZE, new SampleHistogram(HISTOGRAM_SIZE));
+        this.outputSize = group.histogram(OUTPUT_SIZE, new SampleHistogram(HISTOGRAM_SIZE));
+        this.sampleInterval = sampleInterval;
+        // sample the first invocation, so there are latencies right after start-up
+        this.untilSample = 1;
+    }
+
+    /**
+     * @return metrics registered in the function's metric group, named after the function
+     */
+    public static UdfMetrics open(FunctionContext context, String name) {
+        String interval = context.getJobParameter(SAMPLE_INTERVAL_PARAMETER, null);
+        MetricGroup group = context.getMetricGroup();
+        return new UdfMetrics(group == null ? new UnregisteredMetricsGroup() : group, name,
+                interval == null ? DEFAULT_SAMPLE_INTERVAL : Integer.parseInt(interval.trim()));
+    }
+
+    /**
+     * @return metrics that are not reported anywhere, for functions used without open()
+     */
+    public static UdfMetrics unregistered(String name) {
+        return new UdfMetrics(new UnregisteredMetricsGroup(), name, DEFAULT_SAMPLE_INTERVAL);
+    }
+
+    /**
+     * @return a holder of the metrics of the function named {@code name}, to be kept in a final field
+     */
+    public static Lazy lazy(String name) {
+        return new Lazy(name);
+    }
+
+    /**
+     * Counts an invocation.
+     *
+     * @return the start time to pass to {@link #finish}, or {@link #NOT_SAMPLED}
+     */
+    public long start() {
+        invocations.inc();
+        if (sampleInterval == 0 || --untilSample > 0) {
+            return NOT_SAMPLED;
+        }
+        untilSample = sampleInterval;
+        return System.nanoTime();
+    }
+
+    /**
+     * Records the latency and sizes of a sampled invocation, negative sizes are not recorded.
+     */
+    public void finish(long start, long inputSize, long outputSize) {
+        if (start == NOT_SAMPLED) {
+            return;
+        }
+        latency.update(System.nanoTime() - start);
+        if (inputSize >= 0) {
+            this.inputSize.update(inputSize);
+        }
+        if (outputSize >= 0) {
+            this.outputSize.update(outputSize);
+        }
+    }
+
+    /**
+     * Counts an invocation that returns early because of a null input, and records its latency if sampled.
+     */
+    public void nullInput(long start) {
+        nullInputs.inc();
+        finish(start, -1, -1);
+    }
+
+    /**
+     * Counts an invocation that fails or returns early because of an error, and records its latency if sampled.
+     */
+    public void error(long start) {
+        errors.inc();
+        finish(start, -1, -1);
+    }
+
+    /**
+     * Counts an error the function recovers from, the invocation still ends in {@link #finish}.
+     */
+    public void error() {
+        errors.inc();
+    }
+
+    /**
+     * The metrics of one UDF instance, created when they are first needed. It is serialized with the
+     * function, the metrics themselves are not.
+     */
+    public static final class Lazy implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private final String name;
+        private transient UdfMetrics metrics;
+
+        private Lazy(String name) {
+            this.name = name;
+        }
+
+        /**
+         * Registers the metrics in the function's metric group, call it from the function's open().
+         */
+        public void open(FunctionContext context) {
+            metrics = UdfMetrics.open(context, name);
+        }
+
+        /**
+         * @return the metrics registered by {@link #open}, or unregistered ones if it was not called
+         */
+        public UdfMetrics get() {
+            if (metrics == null) {
+                metrics = unregistered(name);
+            }
+            return metrics;
+        }
+    }
+
+    /**
+     * The last {@code size} recorded values. Flink's DescriptiveStatisticsHistogram lives in
+     * flink-runtime, which UDFs do not depend on.
+     *
+     * Updated by the task's thread only, so updates do not lock: the value is stored before the
+     * volatile count is raised. A reporter reading concurrently may see a value or two newer than the
+     * count it read, which does not matter for sampled statistics.
+     */
+    static final class SampleHistogram implements Histogram {
+
+        private final AtomicLongArray values;
+        private volatile long count;
+
+        SampleHistogram(int size) {
+            this.values = new AtomicLongArray(size);
+        }
+
+        @Override
+        public void update(long value) {
+            long n = count;
+            values.lazySet((int) (n % values.length()), value);
+            count = n + 1;
+        }
+
+        @Override
+        public long getCount() {
+            return count;
+        }
+
+        @Override
+        public HistogramStatistics getStatistics() {
+            long[] snapshot = new long[(int) Math.min(count, values.length())];
+            for (int i = 0; i < snapshot.length; i++) {
+                snapshot[i] = values.get(i);
+            }
+            Arrays.sort(snapshot);
+            return new Statistics(snapshot);
+        }
+    }
+
+    private static final class Statistics extends HistogramStatistics {
+
+        private final long[] sorted;
+
+        Statistics(long[] sorted) {
+            this.sorted = sorted;
+        }
+
+        @Override
+        public double getQuantile(double quantile) {
+            if (sorted.length == 0) {
+                return 0;
+            }
+            double position = quantile * (sorted.length - 1);
+            int lower = (int) position;
+            if (lower + 1 >= sorted.length) {
+                return sorted[sorted.length - 1];
+            }
+            return sorted[lower] + (position - lower) * (sorted[lower + 1] - sorted[lower]);
+        }
+
+        @Override
+        public long[] getValues() {
+            return sorted.clone();
+        }
+
+        @Override
+        public int size() {
+            return sorted.length;
+        }
+
+        @Override
+        public double getMean() {
+            if (sorted.length == 0) {
+                return 0;
+            }
+            double sum = 0;
+            for (long value : sorted) {
+                sum += value;
+            }
+            return sum / sorted.length;
+        }
+
+        @Override
+        public double getStdDev() {
+            if (sorted.length < 2) {
+                return 0;
+            }
+            double mean = getMean();
+            double sum = 0;
+            for (long value : sorted) {
+                sum += (value - mean) * (value - mean);
+            }
+            return Math.sqrt(sum / (sorted.length - 1));
+        }
+
+        @Override
+        public long getMax() {
+            return sorted.length == 0 ? 0 : sorted[sorted.length - 1];
+        }
+
+        @Override
+        public long getMin() {
+            return sorted.length == 0 ? 0 : sorted[0];
+        }
+    }
+}
@@ -0,0 +1,183 @@
+package org.example;
+
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.Logger;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class SampledLoggerTest {
+
+    // what reached the underlying logger, as "LEVEL message [params]", also from the timer thread
+    private final List<String> logged = Collections.synchronizedList(new ArrayList<>());
+    private Level threshold = Level.TRACE;
+    private long now;
+
+    private final Logger logger = (Logger) Proxy.newProxyInstance(getClass().getClassLoader(),
+            new Class<?>[]{Logger.class}, (proxy, method, args) -> {
+                switch (method.getName()) {
+                    case "isEnabled":
+                        return ((Level) args[0]).isMoreSpecificThan(threshold);
+                    case "log":
+                        Object[] params = Arrays.copyOfRange(args, 2, args.length);
+                        if (params.length == 1 && params[0] instanceof Object[]) {
+                            params = (Object[]) params[0];
+                        }
+                        logged.add(args[0] + " " + args[1] + " " + Arrays.toString(params));
+                        return null;
+                    default:
+                        throw new UnsupportedOperationException(method.getName());
+                }
+            });
+
+    private SampledLogger sampledLogger(double sampleRate, double rateLimit, double burst) {
+        return new SampledLogger(logger, sampleRate, rateLimit, burst, () -> now);
+    }
+
+    @Test
+    void testLogsEverythingWithoutLimits() {
+        SampledLogger sampledLogger = sampledLogger(1, 0, 1);
+        for (int i = 0; i < 3; i++) {
+            sampledLogger.info("row {}", i);
+        }
+        sampledLogger.close();
+        assertEquals(List.of("INFO row {} [0]", "INFO row {} [1]", "INFO row {} [2]"), logged);
+    }
+
+    @Test
+    void testSkipsDisabledLevels() {
+        threshold = Level.WARN;
+        SampledLogger sampledLogger = sampledLogger(1, 1, 1);
+        sampledLogger.debug("debug {}", 1);
+        sampledLogger.warn("warn {}", 2);
+        sampledLogger.close();
+        // the disabled message neither takes a token nor shows up in a summary
+        assertEquals(List.of("WARN warn {} [2]"), logged);
+    }
+
+    @Test
+    void testSamplesAtTheConfiguredRate() {
+        SampledLogger sampledLogger = sampledLogger(0.25, 0, 1);
+        for (int i = 1; i <= 8; i++) {
+            sampledLogger.info("row {}", i);
+        }
+        sampledLogger.close();
+        assertEquals(List.of(
+                "INFO row {} [4]",
+                "INFO row {} [8]",
+                "INFO Suppressed {} similar messages: {} [6, row {}]"), logged);
+    }
+
+    @Test
+    void testLimitsTheRateWithATokenBucket() {
+        SampledLogger sampledLogger = sampledLogger(1, 2, 2);
+        for (int i = 1; i <= 4; i++) {
+            sampledLogger.warn("row {}", i);
+        }
+        // half a second refills one token
+        now += TimeUnit.MILLISECONDS.toNanos(500);
+        sampledLogger.warn("row {}", 5);
+        sampledLogger.warn("row {}", 6);
+        assertEquals(List.of("WARN row {} [1]", "WARN row {} [2]", "WARN row {} [5]"), logged);
+    }
+
+    @Test
+    void testPassesParametersThroughEachOverload() {
+        SampledLogger sampledLogger = sampledLogger(1, 0, 1);
+        sampledLogger.debug("none");
+        sampledLogger.info("one {}", 1);
+        sampledLogger.error("two {} {}", 1, 2);
+        sampledLogger.fatal("three {} {} {}", 1, 2, 3);
+        assertEquals(List.of("DEBUG none []", "INFO one {} [1]", "ERROR two {} {} [1, 2]",
+                "FATAL three {} {} {} [1, 2, 3]"), logged);
+    }
+
+    @Test
+    void testLogsSummariesPerLevelAndMessage() {
+        SampledLogger sampledLogger = sampledLogger(0, 0, 1);
+        sampledLogger.warn("warn {}", 1);
+        sampledLogger.error("error {}", 2);
+        sampledLogger.warn("warn {}", 3);
+        sampledLogger.warn("other {}");
+        assertEquals(List.of(), logged);
+
+        sampledLogger.logSummaries();
+        assertEquals(Set.of(
+                "WARN Suppressed {} similar messages: {} [2, warn {}]",
+                "WARN Suppressed {} similar messages: {} [1, other {}]",
+                "ERROR Suppressed {} similar messages: {} [1, error {}]"), new HashSet<>(logged));
+
+        logged.clear();
+        sampledLogger.warn("warn {}", 4);
+        sampledLogger.close();
+        assertEquals(List.of("WARN Suppressed {} similar messages: {} [1, warn {}]"), logged);
+
+        logged.clear();
+        sampledLogger.close();
+        assertEquals(List.of(), logged);
+    }
+
+    @Test
+    void testOpenWritesSummariesOnATimer() throws InterruptedException {
+        SampledLogger sampledLogger = SampledLogger.open(new TestFunctionContext(Map.of(
+                "test" + SampledLogger.SAMPLE_RATE, "0",
+                "test" + SampledLogger.SUMMARY_INTERVAL, "200")), "test", logger);
+        try {
+            sampledLogger.warn("row {}", 1);
+            sampledLogger.warn("row {}", 2);
+            // without any further logging call
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while (logged.isEmpty() && System.nanoTime() < deadline) {
+                Thread.sleep(5);
+            }
+            assertEquals(List.of("WARN Suppressed {} similar messages: {} [2, row {}]"), logged);
+        } finally {
+            sampledLogger.close();
+        }
+    }
+
+    @Test
+    void testDoesNotLimitTheRateByDefault() {
+        SampledLogger sampledLogger = SampledLogger.withDefaults(logger);
+        for (int i = 1; i <= 100; i++) {
+            sampledLogger.info("row {}", i);
+        }
+        sampledLogger.close();
+        assertEquals(100, logged.size());
+    }
+
+    @Test
+    void testOpenReadsFunctionAndDefaultParameters() {
+        SampledLogger sampledLogger = SampledLogger.open(new TestFunctionContext(Map.of(
+                "test" + SampledLogger.SAMPLE_RATE, "0.5",
+                SampledLogger.DEFAULT_PREFIX + SampledLogger.SAMPLE_RATE, "0",
+                SampledLogger.DEFAULT_PREFIX + SampledLogger.RATE_LIMIT, "0")), "test", logger);
+        for (int i = 1; i <= 4; i++) {
+            sampledLogger.info("row {}", i);
+        }
+        sampledLogger.close();
+        assertEquals(List.of("INFO row {} [2]", "INFO row {} [4]",
+                "INFO Suppressed {} similar messages: {} [2, row {}]"), logged);
+    }
+
+    @Test
+    void testRejectsInvalidSettings() {
+        assertThrows(IllegalArgumentException.class, () -> sampledLogger(1.5, 0, 1));
+        assertThrows(IllegalArgumentException.class, () -> sampledLogger(1, -1, 1));
+        assertThrows(IllegalArgumentException.class, () -> SampledLogger.open(new TestFunctionContext(Map.of(
+                "test" + SampledLogger.SAMPLE_RATE, "-0.1")), "test", logger));
+        assertThrows(IllegalArgumentException.class, () -> SampledLogger.open(new TestFunctionContext(Map.of(
+                "test" + SampledLogger.SUMMARY_INTERVAL, "0")), "test", logger));
+    }
+}
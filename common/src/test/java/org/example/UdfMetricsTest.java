@@ -0,0 +1,165 @@
+package org.example;
+
+import org.apache.flink.metrics.Counter;
+import org.apache.flink.metrics.Histogram;
+import org.apache.flink.metrics.HistogramStatistics;
+import org.apache.flink.metrics.Metric;
+import org.apache.flink.metrics.MetricGroup;
+import org.apache.flink.metrics.groups.UnregisteredMetricsGroup;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class UdfMetricsTest {
+
+    /** Remembers the registered metrics by their scoped name, e.g. {@code udf.TEST.errors}. */
+    private static class RecordingMetricGroup extends UnregisteredMetricsGroup {
+
+        private final String scope;
+        private final Map<String, Metric> metrics;
+
+        RecordingMetricGroup(String scope, Map<String, Metric> metrics) {
+            this.scope = scope;
+            this.metrics = metrics;
+        }
+
+        @Override
+        public MetricGroup addGroup(String key, String value) {
+            return new RecordingMetricGroup(scope + key + "." + value + ".", metrics);
+        }
+
+        @Override
+        public <C extends Counter> C counter(String name, C counter) {
+            metrics.put(scope + name, counter);
+            return counter;
+        }
+
+        @Override
+        public <H extends Histogram> H histogram(String name, H histogram) {
+            metrics.put(scope + name, histogram);
+            return histogram;
+        }
+    }
+
+    private final Map<String, Metric> metrics = new HashMap<>();
+
+    private UdfMetrics open(Map<String, String> jobParameters) {
+        return UdfMetrics.open(new TestFunctionContext(jobParameters, new RecordingMetricGroup("", metrics)), "TEST");
+    }
+
+    private long count(String name) {
+        return ((Counter) metrics.get("udf.TEST." + name)).getCount();
+    }
+
+    private Histogram histogram(String name) {
+        return (Histogram) metrics.get("udf.TEST." + name);
+    }
+
+    @Test
+    void testCountsInvocationsNullInputsAndErrors() {
+        UdfMetrics udfMetrics = open(Map.of());
+        for (int i = 0; i < 5; i++) {
+            udfMetrics.finish(udfMetrics.start(), 10, 20);
+        }
+        udfMetrics.nullInput(udfMetrics.start());
+        udfMetrics.error(udfMetrics.start());
+
+        assertEquals(7, count(UdfMetrics.INVOCATIONS));
+        assertEquals(1, count(UdfMetrics.NULL_INPUTS));
+        assertEquals(1, count(UdfMetrics.ERRORS));
+    }
+
+    @Test
+    void testSamplesEveryNthInvocation() {
+        UdfMetrics udfMetrics = open(Map.of(UdfMetrics.SAMPLE_INTERVAL_PARAMETER, "3"));
+        for (int i = 0; i < 7; i++) {
+            udfMetrics.finish(udfMetrics.start(), i, -1);
+        }
+
+        // the first invocation, then every third
+        assertArrayEquals(new long[]{0, 3, 6}, histogram(UdfMetrics.INPUT_SIZE).getStatistics().getValues());
+        assertEquals(3, histogram(UdfMetrics.LATENCY).getCount());
+        assertTrue(histogram(UdfMetrics.LATENCY).getStatistics().getMin() >= 0);
+        assertEquals(0, histogram(UdfMetrics.OUTPUT_SIZE).getCount());
+    }
+
+    @Test
+    void testEarlyReturnsKeepTheirSample() {
+        UdfMetrics udfMetrics = open(Map.of(UdfMetrics.SAMPLE_INTERVAL_PARAMETER, "2"));
+        // sampled: the first, third and fifth invocation
+        udfMetrics.nullInput(udfMetrics.start());
+        udfMetrics.finish(udfMetrics.start(), 1, 1);
+        udfMetrics.error(udfMetrics.start());
+        udfMetrics.finish(udfMetrics.start(), 2, 2);
+        udfMetrics.finish(udfMetrics.start(), 3, 3);
+
+        assertEquals(3, histogram(UdfMetrics.LATENCY).getCount());
+        assertArrayEquals(new long[]{3}, histogram(UdfMetrics.INPUT_SIZE).getStatistics().getValues());
+        assertEquals(1, count(UdfMetrics.NULL_INPUTS));
+        assertEquals(1, count(UdfMetrics.ERRORS));
+    }
+
+    @Test
+    void testOnlyCountsWithoutSampling() {
+        UdfMetrics udfMetrics = open(Map.of(UdfMetrics.SAMPLE_INTERVAL_PARAMETER, "0"));
+        assertEquals(UdfMetrics.NOT_SAMPLED, udfMetrics.start());
+        assertEquals(1, count(UdfMetrics.INVOCATIONS));
+        assertEquals(0, histogram(UdfMetrics.LATENCY).getCount());
+    }
+
+    @Test
+    void testRejectsNegativeSampleInterval() {
+        assertThrows(IllegalArgumentException.class, () -> open(Map.of(UdfMetrics.SAMPLE_INTERVAL_PARAMETER, "-1")));
+    }
+
+    @Test
+    void testLazyMetricsAreRegisteredInOpen() {
+        UdfMetrics.Lazy lazy = UdfMetrics.lazy("TEST");
+        lazy.open(new TestFunctionContext(Map.of(), new RecordingMetricGroup("", metrics)));
+        lazy.get().start();
+
+        assertEquals(1, count(UdfMetrics.INVOCATIONS));
+        assertSame(lazy.get(), lazy.get());
+    }
+
+    @Test
+    void testLazyMetricsWithoutOpenAreUnregistered() {
+        UdfMetrics.Lazy lazy = UdfMetrics.lazy("TEST");
+        lazy.get().start();
+
+        assertTrue(metrics.isEmpty());
+        assertSame(lazy.get(), lazy.get());
+    }
+
+    @Test
+    void testHistogramKeepsTheLastValues() {
+        UdfMetrics.SampleHistogram histogram = new UdfMetrics.SampleHistogram(4);
+        for (long value : new long[]{9, 1, 5, 3, 7}) {
+            histogram.update(value);
+        }
+
+        HistogramStatistics statistics = histogram.getStatistics();
+        assertEquals(5, histogram.getCount());
+        assertArrayEquals(new long[]{1, 3, 5, 7}, statistics.getValues());
+        assertEquals(1, statistics.getMin());
+        assertEquals(7, statistics.getMax());
+        assertEquals(4.0, statistics.getMean());
+        assertEquals(4.0, statistics.getQuantile(0.5));
+        assertEquals(7.0, statistics.getQuantile(1.0));
+    }
+
+    @Test
+    void testEmptyHistogram() {
+        HistogramStatistics statistics = new UdfMetrics.SampleHistogram(4).getStatistics();
+        assertEquals(0, statistics.size());
+        assertEquals(0.0, statistics.getQuantile(0.99));
+        assertEquals(0.0, statistics.getMean());
+    }
+}
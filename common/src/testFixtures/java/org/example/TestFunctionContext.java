@@ -0,0 +1,37 @@
+package org.example;
+
+import org.apache.flink.api.common.functions.RuntimeContext;
+import org.apache.flink.metrics.MetricGroup;
+import org.apache.flink.table.functions.FunctionContext;
+
+import java.util.Map;
+
+/**
+ * FunctionContext backed by a plain map of job parameters, for calling open() outside a Flink job.
+ * Shared with the tests of the UDF modules as a test fixture of common.
+ */
+public class TestFunctionContext extends FunctionContext {
+
+    private final Map<String, String> jobParameters;
+    private final MetricGroup metricGroup;
+
+    public TestFunctionContext(Map<String, String> jobParameters) {
+        this(jobParameters, null);
+    }
+
+    public TestFunctionContext(Map<String, String> jobParameters, MetricGroup metricGroup) {
+        super((RuntimeContext) null);
+        this.jobParameters = jobParameters;
+        this.metricGroup = metricGroup;
+    }
+
+    @Override
+    public String getJobParameter(String key, String defaultValue) {
+        return jobParameters.getOrDefault(key, defaultValue);
+    }
+
+    @Override
+    public MetricGroup getMetricGroup() {
+        return metricGroup != null ? metricGroup : super.getMetricGroup();
+    }
+}
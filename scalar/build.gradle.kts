@@ -25,11 +25,13 @@ repositories {
 
 dependencies {
 
+    implementation(project(":common"))
     implementation(libs.bundles.flink)
     implementation(libs.bundles.log4j)
     implementation(libs.jackson.databind)
     implementation(libs.bundles.proto)
     testImplementation(libs.junit.jupiter)
+    testImplementation(testFixtures(project(":common")))
 
     testRuntimeOnly("org.junit.platform:junit-platform-launcher")
 }
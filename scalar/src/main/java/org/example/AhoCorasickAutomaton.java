@@ -0,0 +1,176 @@
+package org.example;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Aho-Corasick automaton counting several needles in a single pass over a string.
+ *
+ * Counts follow {@link CountSubstringStateful#countSubstring}: non-overlapping occurrences per needle,
+ * scanning left to right. Transitions are precomputed into a dense table over the needles' alphabet,
+ * so scanning is one table lookup per character.
+ *
+ * Not thread-safe: counting reuses a scratch array, so keep one automaton per function instance.
+ */
+final class AhoCorasickAutomaton {
+
+    private static final int[] NO_OUTPUT = new int[0];
+
+    private final String[] needles;
+    private final int[] needleLengths;
+
+    // symbol 0 stands for every character that does not occur in any needle
+    private final int[] asciiSymbols = new int[128];
+    private final int asciiCount;
+    private final char[] otherChars;
+    private final int width;
+
+    private final int[] transitions;
+    private final int[][] outputs;
+
+    private final int[] nextAllowedStart;
+
+    /**
+     * @param needles may contain nulls and duplicates; see {@link #needles()}
+     */
+    AhoCorasickAutomaton(String[] needles) {
+        Set<String> distinct = new LinkedHashSet<>();
+        for (String needle : needles) {
+            if (needle != null) {
+                distinct.add(needle);
+            }
+        }
+        this.needles = distinct.toArray(new String[0]);
+        this.needleLengths = new int[this.needles.length];
+        this.nextAllowedStart = new int[this.needles.length];
+
+        TreeSet<Character> others = new TreeSet<>();
+        int ascii = 0;
+        for (String needle : this.needles) {
+            for (int i = 0; i < needle.length(); i++) {
+                char c = needle.charAt(i);
+                if (c < 128) {
+                    if (asciiSymbols[c] == 0) {
+                        asciiSymbols[c] = ++ascii;
+                    }
+                } else {
+                    others.add(c);
+                }
+            }
+        }
+        this.asciiCount = ascii;
+        this.otherChars = new char[others.size()];
+        int k = 0;
+        for (char c : others) {
+            otherChars[k++] = c;
+        }
+        this.width = asciiCount + otherChars.length + 1;
+
+        // trie
+        List<int[]> children = new ArrayList<>();
+        List<List<Integer>> ownOutputs = new ArrayList<>();
+        children.add(new int[width]);
+        ownOutputs.add(new ArrayList<>());
+        for (int n = 0; n < this.needles.length; n++) {
+            String needle = this.needles[n];
+            needleLengths[n] = needle.length();
+            if (needle.isEmpty()) {
+                // empty needles are never counted, like countSubstring
+                continue;
+            }
+            int state = 0;
+            for (int i = 0; i < needle.length(); i++) {
+                int symbol = symbol(needle.charAt(i));
+                int next = children.get(state)[symbol];
+                if (next == 0) {
+                    next = children.size();
+                    children.add(new int[width]);
+                    ownOutputs.add(new ArrayList<>());
+                    children.get(state)[symbol] = next;
+                }
+                state = next;
+            }
+            ownOutputs.get(state).add(n);
+        }
+
+        // failure links, folded into a complete transition table, breadth first
+        int states = children.size();
+        this.transitions = new int[states * width];
+        this.outputs = new int[states][];
+        int[] failure = new int[states];
+        Queue<Integer> queue = new ArrayDeque<>();
+        outputs[0] = NO_OUTPUT;
+        for (int symbol = 0; symbol < width; symbol++) {
+            int child = children.get(0)[symbol];
+            transitions[symbol] = child;
+            if (child != 0) {
+                queue.add(child);
+            }
+        }
+        while (!queue.isEmpty()) {
+            int state = queue.remove();
+            int fail = failure[state];
+            outputs[state] = concat(ownOutputs.get(state), outputs[fail]);
+            for (int symbol = 0; symbol < width; symbol++) {
+                int child = children.get(state)[symbol];
+                if (child != 0) {
+                    failure[child] = transitions[fail * width + symbol];
+                    transitions[state * width + symbol] = child;
+                    queue.add(child);
+                } else {
+                    transitions[state * width + symbol] = transitions[fail * width + symbol];
+                }
+            }
+        }
+    }
+
+    /**
+     * The distinct, non-null needles in first-seen order; counts are indexed accordingly.
+     */
+    String[] needles() {
+        return needles;
+    }
+
+    /**
+     * Adds {@code delta} times the number of occurrences of each needle in {@code text} to {@code counts}.
+     */
+    void count(String text, long[] counts, long delta) {
+        Arrays.fill(nextAllowedStart, 0);
+        int state = 0;
+        for (int i = 0; i < text.length(); i++) {
+            state = transitions[state * width + symbol(text.charAt(i))];
+            for (int needle : outputs[state]) {
+                if (i - needleLengths[needle] + 1 >= nextAllowedStart[needle]) {
+                    counts[needle] += delta;
+                    nextAllowedStart[needle] = i + 1;
+                }
+            }
+        }
+    }
+
+    private int symbol(char c) {
+        if (c < 128) {
+            return asciiSymbols[c];
+        }
+        int index = Arrays.binarySearch(otherChars, c);
+        return index < 0 ? 0 : asciiCount + 1 + index;
+    }
+
+    private static int[] concat(List<Integer> own, int[] inherited) {
+        if (own.isEmpty()) {
+            return inherited;
+        }
+        int[] result = new int[own.size() + inherited.length];
+        for (int i = 0; i < own.size(); i++) {
+            result[i] = own.get(i);
+        }
+        System.arraycopy(inherited, 0, result, own.size(), inherited.length);
+        return result;
+    }
+}
@@ -0,0 +1,173 @@
+package org.example;
+
+import com.fasterxml.jackson.core.io.SerializedString;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Immutable lookup table compiled once from a field mapping MAP and reused for every row.
+ *
+ * Keys live in an open-addressing table and are interned, so the canonicalized names handed
+ * out by Jackson's parser usually match by reference before falling back to equals().
+ * Values are kept as SerializedStrings, which a JsonGenerator writes without re-quoting.
+ */
+final class CompiledFieldMappings {
+
+    private static final byte[] BACKSLASH = {'\\'};
+
+    private final Map<String, String> source;
+    private final String[] keys;
+    private final SerializedString[] values;
+    private final int mask;
+    private final Set<String> targets;
+    private final String[] quotedKeys;
+    private final byte[][] quotedUtf8Keys;
+
+    private CompiledFieldMappings(Map<String, String> source) {
+        this.source = source;
+        int capacity = Integer.highestOneBit(Math.max(source.size(), 1) * 2 - 1) << 1;
+        this.keys = new String[capacity];
+        this.values = new SerializedString[capacity];
+        this.mask = capacity - 1;
+        this.targets = new HashSet<>(source.values());
+        this.quotedKeys = new String[source.size()];
+        this.quotedUtf8Keys = new byte[source.size()][];
+        int i = 0;
+        for (Map.Entry<String, String> entry : source.entrySet()) {
+            String key = entry.getKey().intern();
+            int slot = slot(key);
+            while (keys[slot] != null) {
+                slot = (slot + 1) & mask;
+            }
+            keys[slot] = key;
+            values[slot] = new SerializedString(entry.getValue());
+            quotedKeys[i] = '"' + new String(new SerializedString(key).asQuotedChars()) + '"';
+            quotedUtf8Keys[i] = quotedKeys[i].getBytes(StandardCharsets.UTF_8);
+            i++;
+        }
+    }
+
+    /**
+     * Entries with a null key or value are ignored, i.e. such keys stay unmapped.
+     */
+    static CompiledFieldMappings compile(Map<String, String> fieldMappings) {
+        Map<String, String> source = new HashMap<>();
+        for (Map.Entry<String, String> entry : fieldMappings.entrySet()) {
+            if (entry.getKey() != null && entry.getValue() != null) {
+                source.put(entry.getKey(), entry.getValue());
+            }
+        }
+        return new CompiledFieldMappings(source);
+    }
+
+    /**
+     * @return the new name for {@code name}, or null if it is not mapped
+     */
+    SerializedString lookup(String name) {
+        int slot = slot(name);
+        String key;
+        while ((key = keys[slot]) != null) {
+            if (key == name || key.equals(name)) {
+                return values[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+        return null;
+    }
+
+    String map(String name) {
+        SerializedString mapped = lookup(name);
+        return mapped == null ? name : mapped.getValue();
+    }
+
+    boolean isEmpty() {
+        return source.isEmpty();
+    }
+
+    /**
+     * Whether {@code name} is the new name of some mapped key.
+     */
+    boolean isTarget(String name) {
+        return targets.contains(name);
+    }
+
+    /**
+     * Cheap pre-check on raw JSON text. A false result guarantees that no mapped key occurs in it:
+     * without escape sequences a key can only be spelled one way, as its quoted form.
+     */
+    boolean mayOccurIn(String json) {
+        for (String quotedKey : quotedKeys) {
+            if (json.indexOf(quotedKey) >= 0) {
+                return true;
+            }
+        }
+        return json.indexOf('\\') >= 0;
+    }
+
+    /**
+     * {@link #mayOccurIn(String)} on raw UTF-8 JSON, which spells an unescaped key one way as well.
+     */
+    boolean mayOccurIn(byte[] json) {
+        for (byte[] quotedKey : quotedUtf8Keys) {
+            if (indexOf(json, quotedKey) >= 0) {
+                return true;
+            }
+        }
+        return indexOf(json, BACKSLASH) >= 0;
+    }
+
+    private static int indexOf(byte[] bytes, byte[] target) {
+        byte first = target[0];
+        int last = bytes.length - target.length;
+        for (int i = 0; i <= last; i++) {
+            if (bytes[i] != first) {
+                continue;
+            }
+            int j = 1;
+            while (j < target.length && bytes[i + j] == target[j]) {
+                j++;
+            }
+            if (j == target.length) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Whether {@code fieldMappings} would compile to this table, ignoring the same entries as
+     * {@link #compile}.
+     */
+    boolean matches(Map<String, String> fieldMappings) {
+        if (fieldMappings.size() < source.size()) {
+            return false;
+        }
+        int matched = 0;
+        for (Map.Entry<String, String> entry : fieldMappings.entrySet()) {
+            String key = entry.getKey();
+            String value = entry.getValue();
+            if (key == null || value == null) {
+                continue;
+            }
+            if (!value.equals(source.get(key))) {
+                return false;
+            }
+            matched++;
+        }
+        return matched == source.size();
+    }
+
+    @Override
+    public String toString() {
+        return source.toString();
+    }
+
+    private int slot(String name) {
+        int h = name.hashCode();
+        return (h ^ (h >>> 16)) & mask;
+    }
+}
@@ -0,0 +1,112 @@
+package org.example;
+
+import com.google.protobuf.Descriptors;
+import io.confluent.kafka.schemaregistry.client.SchemaRegistryClient;
+import io.confluent.kafka.schemaregistry.client.SchemaRegistryClientFactory;
+import io.confluent.kafka.schemaregistry.protobuf.ProtobufSchema;
+import io.confluent.kafka.schemaregistry.protobuf.ProtobufSchemaProvider;
+import org.apache.flink.table.functions.FunctionContext;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Confluent Schema Registry wire format for protobuf: magic byte 0, the schema id as a big-endian int
+ * and the message indexes of the message type within its .proto file, followed by the message bytes.
+ *
+ * The header only depends on the schema id and the message type, so it is built once and prepended
+ * to every message, which is what KafkaProtobufSerializer would produce.
+ */
+final class ConfluentWireFormat {
+
+    private static final Logger LOGGER = LogManager.getLogger();
+
+    /** Job parameter suffixes, after a function-specific prefix such as {@code vehicle-stay-protobuf}. */
+    static final String SCHEMA_ID = ".schema-id";
+    static final String SCHEMA_REGISTRY_URL = ".schema-registry.url";
+    static final String SUBJECT = ".schema-registry.subject";
+    static final String AUTO_REGISTER = ".schema-registry.auto-register";
+    static final String BASIC_AUTH_USER_INFO = ".schema-registry.basic-auth-user-info";
+
+    private static final byte MAGIC_BYTE = 0;
+    private static final int CACHE_CAPACITY = 10;
+
+    private ConfluentWireFormat() {
+    }
+
+    /**
+     * The header configured by the job parameters under {@code prefix}, or null for bare protobuf bytes.
+     *
+     * An explicit schema id is used as is. Otherwise the id is looked up in the registry under the
+     * subject, which defaults to the message's full name as with RecordNameStrategy, and the schema is
+     * registered first if auto-register is enabled.
+     */
+    static byte[] header(FunctionContext context, String prefix, Descriptors.Descriptor messageType)
+            throws Exception {
+        String schemaId = context.getJobParameter(prefix + SCHEMA_ID, null);
+        if (schemaId != null) {
+            return header(Integer.parseInt(schemaId.trim()), messageType);
+        }
+        String url = context.getJobParameter(prefix + SCHEMA_REGISTRY_URL, null);
+        if (url == null) {
+            return null;
+        }
+        String subject = context.getJobParameter(prefix + SUBJECT, messageType.getFullName());
+        boolean autoRegister = Boolean.parseBoolean(context.getJobParameter(prefix + AUTO_REGISTER, "false"));
+        Map<String, String> configs = new HashMap<>();
+        String userInfo = context.getJobParameter(prefix + BASIC_AUTH_USER_INFO, null);
+        if (userInfo != null) {
+            configs.put("basic.auth.credentials.source", "USER_INFO");
+            configs.put("basic.auth.user.info", userInfo);
+        }
+
+        ProtobufSchema schema = new ProtobufSchema(messageType);
+        try (SchemaRegistryClient client = SchemaRegistryClientFactory.newClient(
+                Arrays.asList(url.split(",")), CACHE_CAPACITY,
+                Collections.singletonList(new ProtobufSchemaProvider()), configs, Collections.emptyMap())) {
+            int id = autoRegister ? client.register(subject, schema) : client.getId(subject, schema);
+            LOGGER.info("Using schema id {} of subject {} for {}", id, subject, messageType.getFullName());
+            return header(id, messageType);
+        }
+    }
+
+    static byte[] header(int schemaId, Descriptors.Descriptor messageType) {
+        Deque<Integer> indexes = new ArrayDeque<>();
+        for (Descriptors.Descriptor type = messageType; type != null; type = type.getContainingType()) {
+            indexes.addFirst(type.getIndex());
+        }
+        byte[] header = new byte[5 + 5 * (indexes.size() + 1)];
+        header[0] = MAGIC_BYTE;
+        header[1] = (byte) (schemaId >>> 24);
+        header[2] = (byte) (schemaId >>> 16);
+        header[3] = (byte) (schemaId >>> 8);
+        header[4] = (byte) schemaId;
+        int position = 5;
+        if (indexes.size() == 1 && indexes.getFirst() == 0) {
+            // the first message of the file is written as a single 0 instead of [1, 0]
+            header[position++] = 0;
+        } else {
+            position = writeZigZagVarint(header, position, indexes.size());
+            for (int index : indexes) {
+                position = writeZigZagVarint(header, position, index);
+            }
+        }
+        return Arrays.copyOf(header, position);
+    }
+
+    private static int writeZigZagVarint(byte[] buffer, int position, int value) {
+        int zigZag = (value << 1) ^ (value >> 31);
+        while ((zigZag & ~0x7F) != 0) {
+            buffer[position++] = (byte) ((zigZag & 0x7F) | 0x80);
+            zigZag >>>= 7;
+        }
+        buffer[position++] = (byte) zigZag;
+        return position;
+    }
+}
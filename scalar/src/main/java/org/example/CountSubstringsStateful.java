@@ -0,0 +1,176 @@
+package org.example;
+
+import org.apache.flink.table.annotation.DataTypeHint;
+import org.apache.flink.table.annotation.FunctionHint;
+import org.apache.flink.table.functions.AggregateFunction;
+import org.apache.flink.table.functions.FunctionContext;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Counts several needles at once, e.g. {@code COUNT_SUBSTRINGS(msg, ARRAY['error', 'timeout', 'retry'])},
+ * scanning each string once instead of once per COUNT_SUBSTRING aggregate.
+ *
+ * The result maps every distinct needle to its count, following COUNT_SUBSTRING's semantics.
+ */
+@FunctionHint(output = @DataTypeHint("MAP<STRING, BIGINT>"))
+public class CountSubstringsStateful extends AggregateFunction<Map<String, Long>, CountSubstringsStateful.CountsAccumulator> {
+
+    private static final Logger LOGGER = LogManager.getLogger();
+
+    private static final int MAX_CACHED_AUTOMATA = 16;
+
+    public static final String NAME = "COUNT_SUBSTRINGS";
+
+    public static class CountsAccumulator {
+        // distinct needles, null until the first row has been seen
+        public String[] needles;
+        public long[] counts;
+
+        public CountsAccumulator() {
+        }
+
+        public CountsAccumulator(String[] needles, long[] counts) {
+            this.needles = needles;
+            this.counts = counts;
+        }
+    }
+
+    // the needles are usually a constant ARRAY, so their automaton is built once and cached
+    private transient String[] lastNeedles;
+    private transient AhoCorasickAutomaton lastAutomaton;
+    private transient Map<List<String>, AhoCorasickAutomaton> automata;
+
+    private final UdfMetrics.Lazy metrics = UdfMetrics.lazy(NAME);
+
+    @Override
+    public void open(FunctionContext context) throws Exception {
+        metrics.open(context);
+    }
+
+    // mandatory
+    public void accumulate(CountsAccumulator acc, String string, String[] needles) {
+        UdfMetrics metrics = this.metrics.get();
+        long start = metrics.start();
+        if (string == null || needles == null) {
+            metrics.nullInput(start);
+            return;
+        }
+        add(acc, string, needles, 1);
+        metrics.finish(start, string.length(), -1);
+    }
+
+    // merge is mandatory for bounded aggregations as well as
+    // session or hop window aggregations
+    public void merge(CountsAccumulator acc, Iterable<CountsAccumulator> accumulators) {
+        for (CountsAccumulator other : accumulators) {
+            if (other.needles == null) {
+                continue;
+            }
+            if (acc.needles == null) {
+                acc.needles = other.needles;
+                acc.counts = other.counts.clone();
+            } else {
+                addCounts(acc, other.needles, other.counts, 1);
+            }
+        }
+    }
+
+    // retract is necessary for aggregations on OVER windows
+    public void retract(CountsAccumulator acc, String string, String[] needles) {
+        add(acc, string, needles, -1);
+    }
+
+    @Override
+    public Map<String, Long> getValue(CountsAccumulator acc) {
+        Map<String, Long> result = new LinkedHashMap<>();
+        if (acc.needles != null) {
+            for (int i = 0; i < acc.needles.length; i++) {
+                result.put(acc.needles[i], acc.counts[i]);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public CountsAccumulator createAccumulator() {
+        return new CountsAccumulator();
+    }
+
+    private void add(CountsAccumulator acc, String string, String[] needles, long delta) {
+        if (string == null || needles == null) {
+            return;
+        }
+        AhoCorasickAutomaton automaton = getAutomaton(needles);
+        String[] distinctNeedles = automaton.needles();
+        if (acc.needles == null) {
+            acc.needles = distinctNeedles;
+            acc.counts = new long[distinctNeedles.length];
+        }
+        if (acc.needles == distinctNeedles || Arrays.equals(acc.needles, distinctNeedles)) {
+            automaton.count(string, acc.counts, delta);
+        } else {
+            // a different needle set than the one this accumulator started with
+            long[] counts = new long[distinctNeedles.length];
+            automaton.count(string, counts, 1);
+            addCounts(acc, distinctNeedles, counts, delta);
+        }
+    }
+
+    private static void addCounts(CountsAccumulator acc, String[] needles, long[] counts, long sign) {
+        if (acc.needles == needles || Arrays.equals(acc.needles, needles)) {
+            for (int i = 0; i < counts.length; i++) {
+                acc.counts[i] += sign * counts[i];
+            }
+            return;
+        }
+        Map<String, Integer> positions = new HashMap<>();
+        for (int i = 0; i < acc.needles.length; i++) {
+            positions.put(acc.needles[i], i);
+        }
+        String[] mergedNeedles = acc.needles;
+        long[] mergedCounts = acc.counts;
+        for (int i = 0; i < needles.length; i++) {
+            Integer position = positions.get(needles[i]);
+            if (position == null) {
+                position = mergedNeedles.length;
+                mergedNeedles = Arrays.copyOf(mergedNeedles, position + 1);
+                mergedCounts = Arrays.copyOf(mergedCounts, position + 1);
+                mergedNeedles[position] = needles[i];
+                positions.put(needles[i], position);
+            }
+            mergedCounts[position] += sign * counts[i];
+        }
+        acc.needles = mergedNeedles;
+        acc.counts = mergedCounts;
+    }
+
+    private AhoCorasickAutomaton getAutomaton(String[] needles) {
+        if (Arrays.equals(needles, lastNeedles)) {
+            return lastAutomaton;
+        }
+        if (automata == null) {
+            automata = new LinkedHashMap<>(MAX_CACHED_AUTOMATA, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<List<String>, AhoCorasickAutomaton> eldest) {
+                    return size() > MAX_CACHED_AUTOMATA;
+                }
+            };
+        }
+        AhoCorasickAutomaton automaton = automata.get(Arrays.asList(needles));
+        if (automaton == null) {
+            LOGGER.debug("building automaton for needles {}", Arrays.toString(needles));
+            automaton = new AhoCorasickAutomaton(needles);
+            automata.put(Arrays.asList(needles.clone()), automaton);
+        }
+        lastNeedles = needles.clone();
+        lastAutomaton = automaton;
+        return automaton;
+    }
+}
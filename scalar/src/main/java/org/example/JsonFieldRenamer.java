@@ -1,20 +1,88 @@
 package org.example;
 
+import com.fasterxml.jackson.core.JsonLocation;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.core.util.ByteArrayBuilder;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.apache.flink.table.annotation.DataTypeHint;
+import org.apache.flink.table.functions.FunctionContext;
 import org.apache.flink.table.functions.ScalarFunction;
+import org.apache.flink.types.Row;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
 public class JsonFieldRenamer extends ScalarFunction {
     public static final String NAME = "RENAME_JSON_FIELD";
 
     private static final Logger LOGGER = LogManager.getLogger();
 
+    /** Job parameter prefix of the {@link SampledLogger} settings, e.g. {@code json-field-renamer.log.rate-limit}. */
+    public static final String LOG_PREFIX = "json-field-renamer";
+
     // initialized lazily to be serializable
     private transient ObjectMapper objectMapper;
 
+    // malformed input is usually malformed for many rows in a row, so its warnings can be rate limited
+    private transient SampledLogger log;
+
+    private final UdfMetrics.Lazy metrics = UdfMetrics.lazy(NAME);
+
+    // The names are usually constants, so the renames are compiled once and reused for as long
+    // as the same names (or the same, or an equal, MAP) come in
+    private transient String lastOldName;
+    private transient String lastNewName;
+    private transient CompiledFieldMappings compiledRename;
+    private transient Map<String, String> lastRenames;
+    private transient CompiledFieldMappings compiledRenames;
+
+    // the keys found by the last scan and where they start, reused for every row
+    private transient int[] keyStarts;
+    private transient SerializedString[] newKeys;
+    private transient int found;
+    private transient boolean spliceable;
+
+    // output of the BYTES variants, reused for every row
+    private transient ByteArrayBuilder output;
+
+    @Override
+    public void open(FunctionContext context) throws Exception {
+        log = SampledLogger.open(context, LOG_PREFIX, LOGGER);
+        metrics.open(context);
+    }
+
+    @Override
+    public void close() throws Exception {
+        if (log != null) {
+            log.close();
+        }
+    }
+
+    private SampledLogger getLog() {
+        if (log == null) {
+            log = SampledLogger.withDefaults(LOGGER);
+        }
+        return log;
+    }
+
+    private ByteArrayBuilder getOutput() {
+        if (output == null) {
+            output = new ByteArrayBuilder();
+        }
+        output.reset();
+        return output;
+    }
+
     private ObjectMapper getObjectMapper() {
         if (objectMapper == null) {
             objectMapper = new ObjectMapper();
@@ -23,33 +91,330 @@ public class JsonFieldRenamer extends ScalarFunction {
     }
 
     public String eval(String json, String oldName, String newName) {
-        if (json == null || oldName == null || newName == null || oldName.equals(newName)) {
+        UdfMetrics metrics = this.metrics.get();
+        long start = metrics.start();
+        if (json == null || oldName == null || newName == null) {
+            metrics.nullInput(start);
+            return json;
+        }
+        if (oldName.equals(newName)) {
+            metrics.finish(start, json.length(), json.length());
+            return json;
+        }
+        String renamed = rename(json, compiledRename(oldName, newName));
+        metrics.finish(start, json.length(), renamed.length());
+        return renamed;
+    }
+
+    /**
+     * Renames several top-level fields in one pass, e.g.
+     * {@code RENAME_JSON_FIELD(json, MAP['a', 'b', 'c', 'd'])}.
+     *
+     * All renames are applied at once rather than one after the other, so
+     * {@code MAP['a', 'b', 'b', 'c']} swaps names instead of turning 'a' into 'c'.
+     */
+    public String eval(String json, @DataTypeHint("MAP<STRING, STRING>") Map<String, String> renames) {
+        UdfMetrics metrics = this.metrics.get();
+        long start = metrics.start();
+        if (json == null || renames == null) {
+            metrics.nullInput(start);
+            return json;
+        }
+        if (renames.isEmpty()) {
+            metrics.finish(start, json.length(), json.length());
+            return json;
+        }
+        String renamed = rename(json, compiledRenames(renames));
+        metrics.finish(start, json.length(), renamed.length());
+        return renamed;
+    }
+
+    /**
+     * RENAME_JSON_FIELD on raw UTF-8 JSON, e.g. a Kafka value read as BYTES, without decoding it
+     * to a String and encoding the result again.
+     */
+    public byte[] eval(byte[] json, String oldName, String newName) {
+        UdfMetrics metrics = this.metrics.get();
+        long start = metrics.start();
+        if (json == null || oldName == null || newName == null) {
+            metrics.nullInput(start);
+            return json;
+        }
+        if (oldName.equals(newName)) {
+            metrics.finish(start, json.length, json.length);
+            return json;
+        }
+        byte[] renamed = rename(json, compiledRename(oldName, newName));
+        metrics.finish(start, json.length, renamed.length);
+        return renamed;
+    }
+
+    /**
+     * Renames several top-level fields of raw UTF-8 JSON in one pass, see {@link #eval(String, Map)}.
+     */
+    public byte[] eval(byte[] json, @DataTypeHint("MAP<STRING, STRING>") Map<String, String> renames) {
+        UdfMetrics metrics = this.metrics.get();
+        long start = metrics.start();
+        if (json == null || renames == null) {
+            metrics.nullInput(start);
+            return json;
+        }
+        if (renames.isEmpty()) {
+            metrics.finish(start, json.length, json.length);
+            return json;
+        }
+        byte[] renamed = rename(json, compiledRenames(renames));
+        metrics.finish(start, json.length, renamed.length);
+        return renamed;
+    }
+
+    CompiledFieldMappings compiledRename(String oldName, String newName) {
+        if (!oldName.equals(lastOldName) || !newName.equals(lastNewName)) {
+            compiledRename = CompiledFieldMappings.compile(Collections.singletonMap(oldName, newName));
+            lastOldName = oldName;
+            lastNewName = newName;
+        }
+        return compiledRename;
+    }
+
+    CompiledFieldMappings compiledRenames(Map<String, String> renames) {
+        CompiledFieldMappings compiled = compiledRenames;
+        if (compiled == null || (renames != lastRenames && !compiled.matches(renames))) {
+            compiled = CompiledFieldMappings.compile(renames);
+            compiledRenames = compiled;
+        }
+        lastRenames = renames;
+        return compiled;
+    }
+
+    private String rename(String json, CompiledFieldMappings renames) {
+        // Most rows do not contain the fields at all, so skip parsing when none can occur
+        if (renames.isEmpty() || !renames.mayOccurIn(json)) {
             return json;
         }
 
         try {
-            ObjectMapper mapper = getObjectMapper();
-            JsonNode rootNode = mapper.readTree(json);
-
-            // This UDF only operates on top-level fields of a JSON object
-            if (rootNode.isObject()) {
-                ObjectNode objectNode = (ObjectNode) rootNode;
-                if (objectNode.has(oldName)) {
-                    // Get the value, remove the old field, and add the new field
-                    JsonNode value = objectNode.get(oldName);
-                    objectNode.remove(oldName);
-                    objectNode.set(newName, value);
-                }
-                return mapper.writeValueAsString(objectNode);
-            } else {
+            String renamed = renameTopLevelFields(json, renames);
+            if (renamed == null) {
                 // If it's not a JSON object, we can't rename a field. Return as is.
-                LOGGER.warn("Input string is not a JSON object. Returning original value.");
+                getLog().warn("Input string is not a JSON object. Returning original value.");
                 return json;
             }
+            return renamed;
         } catch (Exception e) {
-            LOGGER.error("Error renaming JSON field '{}' to '{}'. Returning original value. Error: {}", oldName, newName, e.getMessage());
+            metrics.get().error();
+            getLog().error("Error renaming JSON fields {}. Returning original value. Error: {}", renames, e.getMessage());
             // In case of error, return the original json to avoid data loss
             return json;
         }
     }
+
+    private byte[] rename(byte[] json, CompiledFieldMappings renames) {
+        if (renames.isEmpty() || !renames.mayOccurIn(json)) {
+            return json;
+        }
+
+        try {
+            byte[] renamed = renameTopLevelFields(json, renames);
+            if (renamed == null) {
+                getLog().warn("Input bytes are not a JSON object. Returning original value.");
+                return json;
+            }
+            return renamed;
+        } catch (Exception e) {
+            metrics.get().error();
+            getLog().error("Error renaming JSON fields {}. Returning original value. Error: {}", renames, e.getMessage());
+            return json;
+        }
+    }
+
+    /**
+     * Like {@link #rename(String, CompiledFieldMappings)}, but reports failures in the result instead of logging them.
+     * Input that cannot contain any of the fields is not rewritten, but still checked.
+     */
+    Row renameOrError(String json, CompiledFieldMappings renames) {
+        if (renames.isEmpty() || !renames.mayOccurIn(json)) {
+            return checkObject(json);
+        }
+
+        try {
+            String renamed = renameTopLevelFields(json, renames);
+            return renamed != null ? JsonResults.success(renamed) : JsonResults.failure(JsonResults.NOT_AN_OBJECT);
+        } catch (Exception e) {
+            return JsonResults.failure(e);
+        }
+    }
+
+    /**
+     * Checks that the input is a JSON object as far as renaming would, skipping over its contents.
+     */
+    Row checkObject(String json) {
+        try (JsonParser parser = getObjectMapper().getFactory().createParser(json)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return JsonResults.failure(JsonResults.NOT_AN_OBJECT);
+            }
+            parser.skipChildren();
+            return JsonResults.success(json);
+        } catch (Exception e) {
+            return JsonResults.failure(e);
+        }
+    }
+
+    /**
+     * Scans the top-level keys with a streaming parser and rewrites only the matching key tokens,
+     * copying everything else, values included, through verbatim.
+     *
+     * @return the renamed JSON, or null if it is not a JSON object
+     */
+    private String renameTopLevelFields(String json, CompiledFieldMappings renames) throws IOException {
+        try (JsonParser parser = getObjectMapper().getFactory().createParser(json)) {
+            if (!scanTopLevelKeys(parser, renames, false)) {
+                return null;
+            }
+        }
+
+        if (found == 0) {
+            return json;
+        }
+        if (!spliceable) {
+            // Duplicate keys, or a rename onto an existing key: let the tree decide which value survives
+            ObjectMapper mapper = getObjectMapper();
+            return mapper.writeValueAsString(renameInTree((ObjectNode) mapper.readTree(json), renames));
+        }
+        StringBuilder result = new StringBuilder(json.length() + 16 * found);
+        int copied = 0;
+        for (int i = 0; i < found; i++) {
+            int keyStart = keyStarts[i];
+            result.append(json, copied, keyStart)
+                    .append('"').append(newKeys[i].asQuotedChars()).append('"');
+            copied = endOfString(json, keyStart);
+        }
+        return result.append(json, copied, json.length()).toString();
+    }
+
+    /**
+     * {@link #renameTopLevelFields(String, CompiledFieldMappings)} on UTF-8 bytes, spliced into the
+     * reused output buffer.
+     */
+    private byte[] renameTopLevelFields(byte[] json, CompiledFieldMappings renames) throws IOException {
+        try (JsonParser parser = getObjectMapper().getFactory().createParser(json)) {
+            if (!scanTopLevelKeys(parser, renames, true)) {
+                return null;
+            }
+        }
+
+        if (found == 0) {
+            return json;
+        }
+        ByteArrayBuilder result = getOutput();
+        if (!spliceable) {
+            ObjectMapper mapper = getObjectMapper();
+            mapper.writeValue(result, renameInTree((ObjectNode) mapper.readTree(json), renames));
+            return result.toByteArray();
+        }
+        int copied = 0;
+        for (int i = 0; i < found; i++) {
+            int keyStart = keyStarts[i];
+            result.write(json, copied, keyStart - copied);
+            result.append('"');
+            result.write(newKeys[i].asQuotedUTF8());
+            result.append('"');
+            copied = endOfString(json, keyStart);
+        }
+        result.write(json, copied, json.length - copied);
+        return result.toByteArray();
+    }
+
+    /**
+     * Collects the top-level keys to rename with their start offsets, in chars for String input
+     * and in bytes for UTF-8 input, and whether they can be renamed by splicing.
+     *
+     * @return false if the input is not a JSON object
+     */
+    private boolean scanTopLevelKeys(JsonParser parser, CompiledFieldMappings renames, boolean utf8)
+            throws IOException {
+        found = 0;
+        spliceable = true;
+        // This UDF only operates on top-level fields of a JSON object
+        if (parser.nextToken() != JsonToken.START_OBJECT) {
+            return false;
+        }
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String name = parser.getCurrentName();
+            SerializedString newKey = renames.lookup(name);
+            if (newKey != null) {
+                if (keyStarts == null) {
+                    keyStarts = new int[4];
+                    newKeys = new SerializedString[4];
+                } else if (found == keyStarts.length) {
+                    keyStarts = Arrays.copyOf(keyStarts, found * 2);
+                    newKeys = Arrays.copyOf(newKeys, found * 2);
+                }
+                for (int i = 0; i < found; i++) {
+                    spliceable &= !newKeys[i].getValue().equals(newKey.getValue());
+                }
+                JsonLocation location = parser.getTokenLocation();
+                keyStarts[found] = (int) (utf8 ? location.getByteOffset() : location.getCharOffset());
+                newKeys[found++] = newKey;
+            } else if (renames.isTarget(name)) {
+                spliceable = false;
+            }
+            parser.nextToken();
+            parser.skipChildren();
+        }
+        return true;
+    }
+
+    private ObjectNode renameInTree(ObjectNode objectNode, CompiledFieldMappings renames) {
+        List<String> oldNames = new ArrayList<>();
+        objectNode.fieldNames().forEachRemaining(name -> {
+            if (renames.lookup(name) != null) {
+                oldNames.add(name);
+            }
+        });
+        // Get the values, remove the old fields, and add the new fields
+        List<JsonNode> values = new ArrayList<>(oldNames.size());
+        for (String oldName : oldNames) {
+            values.add(objectNode.remove(oldName));
+        }
+        for (int i = 0; i < oldNames.size(); i++) {
+            objectNode.set(renames.map(oldNames.get(i)), values.get(i));
+        }
+        return objectNode;
+    }
+
+    /**
+     * @return the index just past the closing quote of the JSON string starting at {@code start}
+     */
+    private static int endOfString(String json, int start) {
+        int i = start + 1;
+        while (true) {
+            char c = json.charAt(i);
+            if (c == '\\') {
+                i += 2;
+            } else if (c == '"') {
+                return i + 1;
+            } else {
+                i++;
+            }
+        }
+    }
+
+    /**
+     * @return the index just past the closing quote of the UTF-8 JSON string starting at {@code start}
+     */
+    private static int endOfString(byte[] json, int start) {
+        // quotes and backslashes never occur inside multi-byte UTF-8 sequences
+        int i = start + 1;
+        while (true) {
+            byte b = json[i];
+            if (b == '\\') {
+                i += 2;
+            } else if (b == '"') {
+                return i + 1;
+            } else {
+                i++;
+            }
+        }
+    }
 }
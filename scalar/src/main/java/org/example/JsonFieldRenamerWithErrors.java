@@ -0,0 +1,67 @@
+package org.example;
+
+import org.apache.flink.table.annotation.DataTypeHint;
+import org.apache.flink.table.functions.FunctionContext;
+import org.apache.flink.table.functions.ScalarFunction;
+import org.apache.flink.types.Row;
+
+import java.util.Map;
+
+/**
+ * RENAME_JSON_FIELD that reports failures instead of returning the input unchanged, e.g.
+ * {@code RENAME_JSON_FIELD_WITH_ERRORS(json, 'a', 'b')} returns {@code ROW<result, error>} with either
+ * the renamed JSON or an error such as {@code NOT_AN_OBJECT} or {@code INVALID_JSON: ...}.
+ *
+ * Every non-null input is checked, including input that cannot contain any of the fields and is
+ * passed through unchanged: a row only has a null error if its input is a JSON object. Input without
+ * the fields is only scanned, not rewritten.
+ */
+public class JsonFieldRenamerWithErrors extends ScalarFunction {
+    public static final String NAME = "RENAME_JSON_FIELD_WITH_ERRORS";
+
+    // only used for its compiled renames and the renaming itself, failures are not logged
+    private final JsonFieldRenamer renamer = new JsonFieldRenamer();
+
+    private final UdfMetrics.Lazy metrics = UdfMetrics.lazy(NAME);
+
+    @Override
+    public void open(FunctionContext context) throws Exception {
+        metrics.open(context);
+    }
+
+    public @DataTypeHint(JsonResults.TYPE) Row eval(String json, String oldName, String newName) {
+        UdfMetrics metrics = this.metrics.get();
+        long start = metrics.start();
+        if (json == null || oldName == null || newName == null) {
+            metrics.nullInput(start);
+            return JsonResults.success(json);
+        }
+        if (oldName.equals(newName)) {
+            return finish(metrics, start, json, renamer.checkObject(json));
+        }
+        return finish(metrics, start, json, renamer.renameOrError(json, renamer.compiledRename(oldName, newName)));
+    }
+
+    public @DataTypeHint(JsonResults.TYPE) Row eval(
+            String json, @DataTypeHint("MAP<STRING, STRING>") Map<String, String> renames) {
+        UdfMetrics metrics = this.metrics.get();
+        long start = metrics.start();
+        if (json == null || renames == null) {
+            metrics.nullInput(start);
+            return JsonResults.success(json);
+        }
+        if (renames.isEmpty()) {
+            return finish(metrics, start, json, renamer.checkObject(json));
+        }
+        return finish(metrics, start, json, renamer.renameOrError(json, renamer.compiledRenames(renames)));
+    }
+
+    private static Row finish(UdfMetrics metrics, long start, String json, Row result) {
+        if (JsonResults.isFailure(result)) {
+            metrics.error(start);
+        } else {
+            metrics.finish(start, json.length(), ((String) result.getField(0)).length());
+        }
+        return result;
+    }
+}
@@ -0,0 +1,44 @@
+package org.example;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import org.apache.flink.types.Row;
+
+/**
+ * Results of the JSON functions' _WITH_ERRORS variants: either the result and a null error, or a
+ * null result and an error of the form {@code CODE: detail}, so that bad records can be routed with
+ * SQL, e.g. {@code WHERE mapped.error LIKE 'INVALID_JSON%'}.
+ */
+final class JsonResults {
+
+    static final String TYPE = "ROW<result STRING, error STRING>";
+
+    /** The input is not well-formed JSON. */
+    static final String INVALID_JSON = "INVALID_JSON";
+    /** The input is JSON, but not the object the function operates on. */
+    static final String NOT_AN_OBJECT = "NOT_AN_OBJECT";
+    /** Anything else went wrong. */
+    static final String FAILED = "FAILED";
+
+    private JsonResults() {
+    }
+
+    static Row success(String result) {
+        return Row.of(result, null);
+    }
+
+    static Row failure(String code) {
+        return Row.of(null, code);
+    }
+
+    static Row failure(Exception e) {
+        if (e instanceof JsonProcessingException) {
+            // without the location and source excerpt that getMessage() adds
+            return Row.of(null, INVALID_JSON + ": " + ((JsonProcessingException) e).getOriginalMessage());
+        }
+        return Row.of(null, FAILED + ": " + e);
+    }
+
+    static boolean isFailure(Row result) {
+        return result.getField(1) != null;
+    }
+}
@@ -0,0 +1,105 @@
+package org.example;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.flink.table.functions.FunctionContext;
+import org.apache.flink.table.functions.ScalarFunction;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Converts JSON to protobuf bytes of any message type of the bundled .proto files, e.g.
+ * {@code JSON_TO_PROTOBUF(json, 'vehicle.events.FenceEventReceived')}.
+ *
+ * The JSON follows protobuf's JSON mapping as parsed by JsonFormat, see {@link ProtoJsonPlan}; the
+ * bytes are the same as the generated code would write. Each message type is compiled into a plan once.
+ *
+ * Like the other JSON functions, it returns null for JSON it cannot convert, e.g. malformed JSON, an
+ * unknown field or a value of the wrong type, and logs the failure through a {@link SampledLogger}.
+ * An unknown message type is an error in the query rather than in a record, so it still fails.
+ */
+public class JsonToProtobufConverter extends ScalarFunction {
+
+    public static final String NAME = "JSON_TO_PROTOBUF";
+
+    private static final Logger LOGGER = LogManager.getLogger();
+
+    /** Job parameter prefix of the {@link SampledLogger} settings, e.g. {@code json-to-protobuf.log.rate-limit}. */
+    public static final String LOG_PREFIX = "json-to-protobuf";
+
+    // initialized lazily to be serializable
+    private transient ObjectMapper objectMapper;
+
+    // records that cannot be converted are logged per row, so they can be rate limited
+    private transient SampledLogger log;
+
+    // compiled on first use of each message type
+    private transient ProtoPlanCache<ProtoJsonPlan> plans;
+    private transient RowProtoPlan.MessageSizes messageSizes;
+
+    private final UdfMetrics.Lazy metrics = UdfMetrics.lazy(NAME);
+
+    @Override
+    public void open(FunctionContext context) throws Exception {
+        log = SampledLogger.open(context, LOG_PREFIX, LOGGER);
+        metrics.open(context);
+    }
+
+    @Override
+    public void close() throws Exception {
+        if (log != null) {
+            log.close();
+        }
+    }
+
+    private SampledLogger getLog() {
+        if (log == null) {
+            log = SampledLogger.withDefaults(LOGGER);
+        }
+        return log;
+    }
+
+    private ObjectMapper getObjectMapper() {
+        if (objectMapper == null) {
+            objectMapper = new ObjectMapper();
+        }
+        return objectMapper;
+    }
+
+    public byte[] eval(String json, String messageType) {
+        UdfMetrics metrics = this.metrics.get();
+        long start = metrics.start();
+        if (json == null || messageType == null) {
+            metrics.nullInput(start);
+            return null;
+        }
+
+        ProtoJsonPlan plan;
+        try {
+            plan = getPlan(messageType);
+        } catch (Exception e) {
+            metrics.error(start);
+            LOGGER.error("Failed to convert JSON to {} protobuf bytes: {}", messageType, e.getMessage(), e);
+            throw new RuntimeException("Failed to convert JSON to " + messageType + " protobuf", e);
+        }
+
+        try {
+            if (messageSizes == null) {
+                messageSizes = new RowProtoPlan.MessageSizes();
+            }
+            byte[] bytes = plan.toProtobuf(json, getObjectMapper().getFactory(), messageSizes);
+            metrics.finish(start, json.length(), bytes.length);
+            return bytes;
+        } catch (Exception e) {
+            metrics.error(start);
+            getLog().error("Failed to convert JSON to {} protobuf bytes, returning null: {}", messageType, e.getMessage());
+            return null;
+        }
+    }
+
+    private ProtoJsonPlan getPlan(String messageType) {
+        if (plans == null) {
+            plans = new ProtoPlanCache<>(ProtoJsonPlan::forMessage);
+        }
+        return plans.get(messageType);
+    }
+}
@@ -1,26 +1,124 @@
 package org.example;
 
+import org.apache.flink.table.functions.FunctionContext;
 import org.apache.flink.table.functions.ScalarFunction;
 import org.apache.flink.table.annotation.DataTypeHint;
+import org.apache.flink.types.Row;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.core.util.ByteArrayBuilder;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 
+import java.io.IOException;
+import java.io.StringWriter;
 import java.util.Iterator;
+import java.util.Locale;
 import java.util.Map;
 
 public class NestedJsonMapper extends ScalarFunction {
     
     public static final String NAME = "nested_json_mapper";
+    
+    /**
+     * Job parameter selecting the {@link Mode}, e.g. {@code nested-json-mapper.mode: streaming}.
+     */
+    public static final String MODE_PARAMETER = "nested-json-mapper.mode";
+    
+    /** Job parameter prefix of the {@link SampledLogger} settings, e.g. {@code nested-json-mapper.log.rate-limit}. */
+    public static final String LOG_PREFIX = "nested-json-mapper";
+    
     private static final Logger LOGGER = LogManager.getLogger();
     
+    /**
+     * How the input document is rewritten.
+     */
+    public enum Mode {
+        /**
+         * Parse into a JsonNode tree, rebuild a renamed copy and serialize it.
+         * If several keys of one object end up with the same name, the last one wins.
+         */
+        TREE,
+        /**
+         * Copy parser tokens straight to a generator, renaming FIELD_NAME tokens on the fly.
+         * Nothing is materialized, so keys that end up with the same name are all written out.
+         */
+        STREAMING
+    }
+    
+    private Mode mode;
+    
     // initialized lazily to be serializable
     private transient ObjectMapper objectMapper;
     
+    // errors are logged per row, so they can be rate limited
+    private transient SampledLogger log;
+    
+    // output of the BYTES variant, reused for every row
+    private transient ByteArrayBuilder output;
+    
+    private final UdfMetrics.Lazy metrics = UdfMetrics.lazy(NAME);
+    
+    // In SQL the mappings are usually a constant literal, so they are compiled once and reused
+    // for as long as Flink keeps handing in the same (or an equal) map
+    private transient Map<String, String> lastFieldMappings;
+    private transient CompiledFieldMappings compiledFieldMappings;
+    
+    public NestedJsonMapper() {
+        this(Mode.TREE);
+    }
+    
+    public NestedJsonMapper(Mode mode) {
+        this.mode = mode;
+    }
+    
+    @Override
+    public void open(FunctionContext context) throws Exception {
+        configure(context);
+        log = SampledLogger.open(context, LOG_PREFIX, LOGGER);
+        metrics.open(context);
+    }
+    
+    @Override
+    public void close() throws Exception {
+        if (log != null) {
+            log.close();
+        }
+    }
+    
+    /**
+     * Applies the {@link #MODE_PARAMETER}, without registering logging or metrics.
+     */
+    void configure(FunctionContext context) {
+        String configured = context.getJobParameter(MODE_PARAMETER, mode.name());
+        mode = Mode.valueOf(configured.trim().toUpperCase(Locale.ROOT));
+        LOGGER.debug("Using {} mode", mode);
+    }
+    
+    private SampledLogger getLog() {
+        if (log == null) {
+            log = SampledLogger.withDefaults(LOGGER);
+        }
+        return log;
+    }
+    
+    private ByteArrayBuilder getOutput() {
+        if (output == null) {
+            output = new ByteArrayBuilder();
+        }
+        output.reset();
+        return output;
+    }
+    
     private ObjectMapper getObjectMapper() {
         if (objectMapper == null) {
             objectMapper = new ObjectMapper();
@@ -29,28 +127,174 @@ public class NestedJsonMapper extends ScalarFunction {
     }
     
     public String eval(String jsonInput, @DataTypeHint("MAP<STRING, STRING>") Map<String, String> fieldMappings) {
+        UdfMetrics metrics = this.metrics.get();
+        long start = metrics.start();
         if (jsonInput == null || jsonInput.trim().isEmpty()) {
+            metrics.nullInput(start);
             LOGGER.debug("Input is null or empty");
             return null;
         }
         
         if (fieldMappings == null || fieldMappings.isEmpty()) {
             LOGGER.debug("Field mappings are null or empty, returning input unchanged");
+            metrics.finish(start, jsonInput.length(), jsonInput.length());
             return jsonInput;
         }
         
         try {
-            ObjectMapper mapper = getObjectMapper();
-            JsonNode inputNode = mapper.readTree(jsonInput);
-            JsonNode transformedNode = transformJsonNode(inputNode, fieldMappings);
-            return mapper.writeValueAsString(transformedNode);
+            String transformed = transform(jsonInput, getCompiledFieldMappings(fieldMappings));
+            metrics.finish(start, jsonInput.length(), transformed.length());
+            return transformed;
         } catch (Exception e) {
-            LOGGER.error("Error processing JSON input: {}", e.getMessage(), e);
+            metrics.error(start);
+            getLog().error("Error processing JSON input: {}", e.getMessage(), e);
             return null;
         }
     }
     
-    private JsonNode transformJsonNode(JsonNode node, Map<String, String> fieldMappings) {
+    /**
+     * nested_json_mapper on raw UTF-8 JSON, e.g. a Kafka value read as BYTES, without decoding it
+     * to a String and encoding the result again.
+     */
+    public byte[] eval(byte[] jsonInput, @DataTypeHint("MAP<STRING, STRING>") Map<String, String> fieldMappings) {
+        UdfMetrics metrics = this.metrics.get();
+        long start = metrics.start();
+        if (jsonInput == null || isBlank(jsonInput)) {
+            metrics.nullInput(start);
+            LOGGER.debug("Input is null or empty");
+            return null;
+        }
+        
+        if (fieldMappings == null || fieldMappings.isEmpty()) {
+            LOGGER.debug("Field mappings are null or empty, returning input unchanged");
+            metrics.finish(start, jsonInput.length, jsonInput.length);
+            return jsonInput;
+        }
+        
+        try {
+            byte[] transformed = transform(jsonInput, getCompiledFieldMappings(fieldMappings));
+            metrics.finish(start, jsonInput.length, transformed.length);
+            return transformed;
+        } catch (Exception e) {
+            metrics.error(start);
+            getLog().error("Error processing JSON input: {}", e.getMessage(), e);
+            return null;
+        }
+    }
+    
+    /**
+     * Same as {@code String.trim().isEmpty()} on the decoded input, which only trims ASCII.
+     */
+    private static boolean isBlank(byte[] jsonInput) {
+        for (byte b : jsonInput) {
+            // bytes of multi-byte sequences are negative, so they count as content
+            if (b < 0 || b > ' ') {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    /**
+     * Like {@link #eval(String, Map)}, but reports failures in the result instead of logging them.
+     */
+    Row transformOrError(String jsonInput, CompiledFieldMappings mappings) {
+        try {
+            return JsonResults.success(transform(jsonInput, mappings));
+        } catch (Exception e) {
+            return JsonResults.failure(e);
+        }
+    }
+    
+    /**
+     * Checks that the input is JSON as far as mapping would, skipping over it, for input with
+     * nothing to map.
+     */
+    Row checkJson(String jsonInput) {
+        try (JsonParser parser = getObjectMapper().getFactory().createParser(jsonInput)) {
+            parser.nextToken();
+            parser.skipChildren();
+            return JsonResults.success(jsonInput);
+        } catch (Exception e) {
+            return JsonResults.failure(e);
+        }
+    }
+    
+    private String transform(String jsonInput, CompiledFieldMappings mappings) throws IOException {
+        if (mode == Mode.STREAMING) {
+            return transformStreaming(jsonInput, mappings);
+        }
+        ObjectMapper mapper = getObjectMapper();
+        JsonNode inputNode = mapper.readTree(jsonInput);
+        JsonNode transformedNode = transformJsonNode(inputNode, mappings);
+        return mapper.writeValueAsString(transformedNode);
+    }
+    
+    CompiledFieldMappings getCompiledFieldMappings(Map<String, String> fieldMappings) {
+        CompiledFieldMappings compiled = compiledFieldMappings;
+        if (compiled == null || (fieldMappings != lastFieldMappings && !compiled.matches(fieldMappings))) {
+            LOGGER.debug("Compiling {} field mappings", fieldMappings.size());
+            compiled = CompiledFieldMappings.compile(fieldMappings);
+            compiledFieldMappings = compiled;
+        }
+        lastFieldMappings = fieldMappings;
+        return compiled;
+    }
+    
+    private String transformStreaming(String jsonInput, CompiledFieldMappings fieldMappings) throws IOException {
+        JsonFactory factory = getObjectMapper().getFactory();
+        StringWriter writer = new StringWriter(jsonInput.length());
+        try (JsonParser parser = factory.createParser(jsonInput);
+             JsonGenerator generator = factory.createGenerator(writer)) {
+            copyMapped(parser, generator, fieldMappings);
+        }
+        return writer.toString();
+    }
+    
+    /**
+     * {@link #transform(String, CompiledFieldMappings)} on UTF-8 bytes, written to the reused output buffer
+     * by a UTF-8 generator.
+     */
+    private byte[] transform(byte[] jsonInput, CompiledFieldMappings mappings) throws IOException {
+        ObjectMapper mapper = getObjectMapper();
+        ByteArrayBuilder output = getOutput();
+        if (mode == Mode.STREAMING) {
+            JsonFactory factory = mapper.getFactory();
+            try (JsonParser parser = factory.createParser(jsonInput);
+                 JsonGenerator generator = factory.createGenerator(output, JsonEncoding.UTF8)) {
+                copyMapped(parser, generator, mappings);
+            }
+        } else {
+            mapper.writeValue(output, transformJsonNode(mapper.readTree(jsonInput), mappings));
+        }
+        return output.toByteArray();
+    }
+    
+    private static void copyMapped(JsonParser parser, JsonGenerator generator, CompiledFieldMappings fieldMappings)
+            throws IOException {
+        // Like readTree, only the first root-level value is read; trailing content is ignored
+        int depth = 0;
+        JsonToken token = parser.nextToken();
+        do {
+            if (token == JsonToken.FIELD_NAME) {
+                SerializedString mappedKey = fieldMappings.lookup(parser.getCurrentName());
+                if (mappedKey != null) {
+                    generator.writeFieldName(mappedKey);
+                } else {
+                    generator.copyCurrentEvent(parser);
+                }
+            } else {
+                generator.copyCurrentEvent(parser);
+                if (token.isStructStart()) {
+                    depth++;
+                } else if (token.isStructEnd()) {
+                    depth--;
+                }
+            }
+        } while (depth > 0 && (token = parser.nextToken()) != null);
+    }
+    
+    private JsonNode transformJsonNode(JsonNode node, CompiledFieldMappings fieldMappings) {
         if (node == null) {
             return null;
         }
@@ -65,7 +309,7 @@ public class NestedJsonMapper extends ScalarFunction {
         }
     }
     
-    private JsonNode transformObjectNode(ObjectNode objectNode, Map<String, String> fieldMappings) {
+    private JsonNode transformObjectNode(ObjectNode objectNode, CompiledFieldMappings fieldMappings) {
         ObjectNode result = getObjectMapper().createObjectNode();
         
         Iterator<Map.Entry<String, JsonNode>> fields = objectNode.fields();
@@ -75,7 +319,7 @@ public class NestedJsonMapper extends ScalarFunction {
             JsonNode value = field.getValue();
             
             // Apply field mapping if exists, otherwise keep original key
-            String mappedKey = fieldMappings.getOrDefault(originalKey, originalKey);
+            String mappedKey = fieldMappings.map(originalKey);
             
             // Recursively transform the value
             JsonNode transformedValue = transformJsonNode(value, fieldMappings);
@@ -86,7 +330,7 @@ public class NestedJsonMapper extends ScalarFunction {
         return result;
     }
     
-    private JsonNode transformArrayNode(ArrayNode arrayNode, Map<String, String> fieldMappings) {
+    private JsonNode transformArrayNode(ArrayNode arrayNode, CompiledFieldMappings fieldMappings) {
         ArrayNode result = getObjectMapper().createArrayNode();
         
         for (JsonNode element : arrayNode) {
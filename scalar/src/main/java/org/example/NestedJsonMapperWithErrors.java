@@ -0,0 +1,60 @@
+package org.example;
+
+import org.apache.flink.table.annotation.DataTypeHint;
+import org.apache.flink.table.functions.FunctionContext;
+import org.apache.flink.table.functions.ScalarFunction;
+import org.apache.flink.types.Row;
+
+import java.util.Map;
+
+/**
+ * nested_json_mapper that reports failures instead of returning null, e.g.
+ * {@code nested_json_mapper_with_errors(json, MAP['a.b', 'c'])} returns {@code ROW<result, error>}
+ * with either the mapped JSON or an error such as {@code INVALID_JSON: ...}.
+ *
+ * Null or blank input yields a null result without an error, as nested_json_mapper returns null
+ * for it as well. Any other input is checked, also when the mappings are null or empty and it is
+ * returned unchanged. The {@link NestedJsonMapper#MODE_PARAMETER} applies to this function, too.
+ */
+public class NestedJsonMapperWithErrors extends ScalarFunction {
+
+    public static final String NAME = "nested_json_mapper_with_errors";
+
+    // only used for its compiled mappings and the mapping itself, failures are not logged
+    private final NestedJsonMapper mapper;
+
+    private final UdfMetrics.Lazy metrics = UdfMetrics.lazy(NAME);
+
+    public NestedJsonMapperWithErrors() {
+        this(NestedJsonMapper.Mode.TREE);
+    }
+
+    public NestedJsonMapperWithErrors(NestedJsonMapper.Mode mode) {
+        this.mapper = new NestedJsonMapper(mode);
+    }
+
+    @Override
+    public void open(FunctionContext context) throws Exception {
+        mapper.configure(context);
+        metrics.open(context);
+    }
+
+    public @DataTypeHint(JsonResults.TYPE) Row eval(
+            String jsonInput, @DataTypeHint("MAP<STRING, STRING>") Map<String, String> fieldMappings) {
+        UdfMetrics metrics = this.metrics.get();
+        long start = metrics.start();
+        if (jsonInput == null || jsonInput.trim().isEmpty()) {
+            metrics.nullInput(start);
+            return JsonResults.success(null);
+        }
+        Row result = fieldMappings == null || fieldMappings.isEmpty()
+                ? mapper.checkJson(jsonInput)
+                : mapper.transformOrError(jsonInput, mapper.getCompiledFieldMappings(fieldMappings));
+        if (JsonResults.isFailure(result)) {
+            metrics.error(start);
+        } else {
+            metrics.finish(start, jsonInput.length(), ((String) result.getField(0)).length());
+        }
+        return result;
+    }
+}
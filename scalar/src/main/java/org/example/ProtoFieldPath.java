@@ -0,0 +1,182 @@
+package org.example;
+
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.Descriptors;
+import com.google.protobuf.WireFormat;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Base64;
+
+/**
+ * A dotted field path such as {@code event.correlation_id}, resolved once to the tag expected at each
+ * level, for pulling a single value out of protobuf bytes without parsing the message.
+ *
+ * Everything but the path's own fields is skipped by tag and length. If a field occurs more than once,
+ * the last occurrence wins, as when parsing.
+ *
+ * Absent values read like VEHICLE_STAY_PROTOBUF_DESERIALIZE reads them: null if a message on the path is
+ * absent or the field has presence (optional and oneof fields, wrappers), otherwise the field's default.
+ */
+final class ProtoFieldPath {
+
+    private final String path;
+    private final int[] tags;
+    // a path ending at a wrapper such as google.protobuf.BoolValue reads the wrapped value
+    private final Descriptors.FieldDescriptor leaf;
+    // whether an absent leaf reads as its default rather than null
+    private final boolean defaulted;
+
+    private ProtoFieldPath(String path, int[] tags, Descriptors.FieldDescriptor leaf) {
+        this.path = path;
+        this.tags = tags;
+        this.leaf = leaf;
+        this.defaulted = !leaf.hasPresence();
+    }
+
+    /**
+     * Resolves {@code path} against {@code messageType}; segments are field names as in the .proto file,
+     * or lowerCamelCase.
+     */
+    static ProtoFieldPath resolve(Descriptors.Descriptor messageType, String path) {
+        String[] names = path.split("\\.", -1);
+        int[] tags = new int[names.length + 1];
+        Descriptors.Descriptor message = messageType;
+        Descriptors.FieldDescriptor field = null;
+        for (int i = 0; i < names.length; i++) {
+            if (message == null) {
+                throw new IllegalArgumentException("Not a message field: " + field.getFullName());
+            }
+            field = findField(message, names[i]);
+            if (field == null) {
+                throw new IllegalArgumentException("Unknown field '" + names[i] + "' in " + message.getFullName());
+            }
+            if (field.isRepeated()) {
+                throw new IllegalArgumentException("Repeated fields are not supported: " + field.getFullName());
+            }
+            tags[i] = WireFormat.makeTag(field.getNumber(), RowProtoPlan.wireType(field));
+            message = field.getType() == Descriptors.FieldDescriptor.Type.MESSAGE ? field.getMessageType() : null;
+        }
+        if (message == null) {
+            return new ProtoFieldPath(path, Arrays.copyOf(tags, names.length), field);
+        }
+        if (!RowProtoPlan.isWrapper(message)) {
+            throw new IllegalArgumentException("Path must end at a scalar field: " + path);
+        }
+        field = message.getFields().get(0);
+        tags[names.length] = WireFormat.makeTag(field.getNumber(), RowProtoPlan.wireType(field));
+        return new ProtoFieldPath(path, tags, field);
+    }
+
+    /**
+     * @return the value as a string (enums by name, bytes in base64), or null if it is absent, see above
+     */
+    String extract(byte[] bytes) throws IOException {
+        String result = find(CodedInputStream.newInstance(bytes), 0);
+        // the message itself is always present
+        return result == null && defaulted && tags.length == 1 ? defaultValue() : result;
+    }
+
+    private String find(CodedInputStream input, int depth) throws IOException {
+        String result = null;
+        int wanted = tags[depth];
+        boolean last = depth == tags.length - 1;
+        int tag;
+        while ((tag = input.readTag()) != 0) {
+            if (tag != wanted) {
+                input.skipField(tag);
+            } else if (last) {
+                result = readValue(input);
+            } else {
+                int limit = input.pushLimit(input.readRawVarint32());
+                String found = find(input, depth + 1);
+                input.popLimit(limit);
+                if (found != null) {
+                    result = found;
+                } else if (defaulted && depth == tags.length - 2 && result == null) {
+                    // the leaf's message is present, but not the leaf
+                    result = defaultValue();
+                }
+            }
+        }
+        return result;
+    }
+
+    private String readValue(CodedInputStream input) throws IOException {
+        switch (leaf.getType()) {
+            case STRING:
+                return input.readStringRequireUtf8();
+            case BYTES:
+                return Base64.getEncoder().encodeToString(input.readByteArray());
+            case BOOL:
+                return String.valueOf(input.readBool());
+            case DOUBLE:
+                return String.valueOf(input.readDouble());
+            case FLOAT:
+                return String.valueOf(input.readFloat());
+            case INT32:
+                return String.valueOf(input.readInt32());
+            case SINT32:
+                return String.valueOf(input.readSInt32());
+            case SFIXED32:
+                return String.valueOf(input.readSFixed32());
+            case UINT32:
+                return Integer.toUnsignedString(input.readUInt32());
+            case FIXED32:
+                return Integer.toUnsignedString(input.readFixed32());
+            case INT64:
+                return String.valueOf(input.readInt64());
+            case SINT64:
+                return String.valueOf(input.readSInt64());
+            case SFIXED64:
+                return String.valueOf(input.readSFixed64());
+            case UINT64:
+                return Long.toUnsignedString(input.readUInt64());
+            case FIXED64:
+                return Long.toUnsignedString(input.readFixed64());
+            case ENUM:
+                return enumName(input.readEnum());
+            default:
+                throw new IllegalStateException("Not a scalar field: " + leaf.getFullName());
+        }
+    }
+
+    private String defaultValue() {
+        switch (leaf.getType()) {
+            case STRING:
+            case BYTES:
+                return "";
+            case BOOL:
+                return "false";
+            case DOUBLE:
+            case FLOAT:
+                return "0.0";
+            case ENUM:
+                return enumName(0);
+            default:
+                return "0";
+        }
+    }
+
+    private String enumName(int number) {
+        Descriptors.EnumValueDescriptor value = leaf.getEnumType().findValueByNumber(number);
+        return value != null ? value.getName() : String.valueOf(number);
+    }
+
+    private static Descriptors.FieldDescriptor findField(Descriptors.Descriptor message, String name) {
+        Descriptors.FieldDescriptor field = message.findFieldByName(name);
+        if (field == null) {
+            for (Descriptors.FieldDescriptor candidate : message.getFields()) {
+                if (candidate.getJsonName().equals(name)) {
+                    return candidate;
+                }
+            }
+        }
+        return field;
+    }
+
+    @Override
+    public String toString() {
+        return path;
+    }
+}
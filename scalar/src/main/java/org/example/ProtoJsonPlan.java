@@ -0,0 +1,774 @@
+package org.example;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.Descriptors;
+import com.google.protobuf.WireFormat;
+import org.apache.flink.types.Row;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Precomputed plan for the protobuf JSON mapping of one message type, working on the positional Rows
+ * of {@link RowProtoPlan#forMessage}: column i holds the i-th declared field.
+ *
+ * Follows the conventions of protobuf-java-util's JsonFormat: lowerCamelCase names are written and
+ * both those and the .proto names are read; 64-bit integers are quoted; bytes are base64; enums go by
+ * name; wrappers such as google.protobuf.BoolValue are bare values; fields without presence are left
+ * out while they hold their default value. Unknown fields, a field set twice and two members of one
+ * oneof are rejected. Output is compact, without JsonFormat's indentation, and in field number order.
+ *
+ * A plan compiled by {@link #forMessage} converts whole messages between JSON and protobuf bytes.
+ * Protobuf bytes are copied to the JSON generator tag by tag as long as the fields come in field number
+ * order, as any protobuf library writes them. Bytes with fields out of order or set more than once, e.g.
+ * concatenated messages, go through a Row decoded by the message's RowProtoPlan instead, which applies
+ * protobuf's merge rules. JSON is always read into a Row first: protobuf writes the length of a
+ * sub-message before it and fields in number order, neither of which is known before the JSON object
+ * ends. Plans are immutable and can be shared.
+ */
+final class ProtoJsonPlan {
+
+    private static final BigInteger MAX_UINT64 = BigInteger.ONE.shiftLeft(64).subtract(BigInteger.ONE);
+
+    private final String fullName;
+    private final String[] jsonNames;
+    private final String[] protoNames;
+    private final Descriptors.FieldDescriptor.Type[] types;
+    private final boolean[] repeated;
+    private final boolean[] presence;
+    // for oneof members, the index of the oneof; -1 otherwise
+    private final int[] oneofs;
+    private final ProtoJsonPlan[] nested;
+    // wrapper fields are written and read as the wrapped value
+    private final Descriptors.FieldDescriptor.Type[] wrappedTypes;
+    private final int[] wrappedTags;
+    private final Map<String, Integer>[] enumNumbers;
+    private final Map<Integer, String>[] enumNames;
+    private final String[] defaultEnumNames;
+    // field numbers in ascending order, and the index of the field with each of them
+    private final int[] fieldNumbers;
+    private final int[] byNumber;
+    // wire type of a single value per field, as written outside a packed field
+    private final int[] wireTypes;
+    private final Map<String, Integer> fieldIndexes = new HashMap<>();
+    // only set on the plan returned by forMessage
+    private RowProtoPlan wirePlan;
+
+    @SuppressWarnings("unchecked")
+    private ProtoJsonPlan(Descriptors.Descriptor descriptor) {
+        List<Descriptors.FieldDescriptor> fields = descriptor.getFields();
+        int fieldCount = fields.size();
+        this.fullName = descriptor.getFullName();
+        this.jsonNames = new String[fieldCount];
+        this.protoNames = new String[fieldCount];
+        this.types = new Descriptors.FieldDescriptor.Type[fieldCount];
+        this.repeated = new boolean[fieldCount];
+        this.presence = new boolean[fieldCount];
+        this.oneofs = new int[fieldCount];
+        this.nested = new ProtoJsonPlan[fieldCount];
+        this.wrappedTypes = new Descriptors.FieldDescriptor.Type[fieldCount];
+        this.wrappedTags = new int[fieldCount];
+        this.enumNumbers = new Map[fieldCount];
+        this.enumNames = new Map[fieldCount];
+        this.defaultEnumNames = new String[fieldCount];
+        this.fieldNumbers = new int[fieldCount];
+        this.byNumber = new int[fieldCount];
+        this.wireTypes = new int[fieldCount];
+        for (int i = 0; i < fieldCount; i++) {
+            Descriptors.FieldDescriptor field = fields.get(i);
+            if (field.isMapField()) {
+                throw new IllegalArgumentException("Map fields are not supported: " + field.getFullName());
+            }
+            jsonNames[i] = field.getJsonName();
+            protoNames[i] = field.getName();
+            types[i] = field.getType();
+            repeated[i] = field.isRepeated();
+            presence[i] = !field.isRepeated() && field.hasPresence();
+            oneofs[i] = field.getContainingOneof() == null ? -1 : field.getContainingOneof().getIndex();
+            wireTypes[i] = RowProtoPlan.wireType(field);
+            if (field.getType() == Descriptors.FieldDescriptor.Type.ENUM) {
+                enumNumbers[i] = new HashMap<>();
+                enumNames[i] = new HashMap<>();
+                for (Descriptors.EnumValueDescriptor value : field.getEnumType().getValues()) {
+                    enumNumbers[i].put(value.getName(), value.getNumber());
+                    // an alias prints as the first name of its number
+                    enumNames[i].putIfAbsent(value.getNumber(), value.getName());
+                }
+                Descriptors.EnumValueDescriptor defaultValue = field.getEnumType().findValueByNumber(0);
+                defaultEnumNames[i] = defaultValue == null ? null : defaultValue.getName();
+            }
+            fieldIndexes.put(field.getName(), i);
+            fieldIndexes.put(field.getJsonName(), i);
+        }
+        long[] numbered = new long[fieldCount];
+        for (int i = 0; i < fieldCount; i++) {
+            numbered[i] = (long) fields.get(i).getNumber() << 32 | i;
+        }
+        Arrays.sort(numbered);
+        for (int n = 0; n < fieldCount; n++) {
+            fieldNumbers[n] = (int) (numbered[n] >>> 32);
+            byNumber[n] = (int) numbered[n];
+        }
+    }
+
+    /**
+     * Compiles a plan for {@code descriptor} and the message types it uses.
+     */
+    static ProtoJsonPlan forMessage(Descriptors.Descriptor descriptor) {
+        ProtoJsonPlan plan = forMessage(descriptor, new HashMap<>());
+        plan.wirePlan = RowProtoPlan.forMessage(descriptor);
+        return plan;
+    }
+
+    /**
+     * Converts protobuf bytes of this message type to a JSON object.
+     */
+    String toJson(byte[] bytes, JsonFactory factory) throws IOException {
+        StringWriter json = new StringWriter(Math.max(16, 2 * bytes.length));
+        try (JsonGenerator generator = factory.createGenerator(json)) {
+            if (copy(CodedInputStream.newInstance(bytes), generator)) {
+                generator.flush();
+                return json.toString();
+            }
+        }
+        json = new StringWriter(Math.max(16, 2 * bytes.length));
+        try (JsonGenerator generator = factory.createGenerator(json)) {
+            write(generator, wirePlan.parse(bytes));
+        }
+        return json.toString();
+    }
+
+    /**
+     * Converts a JSON object to protobuf bytes of this message type.
+     */
+    byte[] toProtobuf(String json, JsonFactory factory, RowProtoPlan.MessageSizes sizes) throws IOException {
+        Row row;
+        try (JsonParser parser = factory.createParser(json)) {
+            parser.nextToken();
+            row = read(parser);
+            if (parser.nextToken() != null) {
+                throw new IllegalArgumentException("Unexpected content after the JSON object: " + parser.currentToken());
+            }
+        }
+        return wirePlan.toByteArray(row, sizes);
+    }
+
+    private static ProtoJsonPlan forMessage(Descriptors.Descriptor descriptor,
+                                            Map<Descriptors.Descriptor, ProtoJsonPlan> plans) {
+        ProtoJsonPlan plan = plans.get(descriptor);
+        if (plan != null) {
+            // a recursive message type
+            return plan;
+        }
+        plan = new ProtoJsonPlan(descriptor);
+        plans.put(descriptor, plan);
+        List<Descriptors.FieldDescriptor> fields = descriptor.getFields();
+        for (int i = 0; i < fields.size(); i++) {
+            if (plan.types[i] == Descriptors.FieldDescriptor.Type.MESSAGE) {
+                Descriptors.Descriptor messageType = fields.get(i).getMessageType();
+                if (RowProtoPlan.isWrapper(messageType)) {
+                    Descriptors.FieldDescriptor value = messageType.getFields().get(0);
+                    plan.wrappedTypes[i] = value.getType();
+                    plan.wrappedTags[i] = WireFormat.makeTag(value.getNumber(), RowProtoPlan.wireType(value));
+                } else {
+                    plan.nested[i] = forMessage(messageType, plans);
+                }
+            }
+        }
+        return plan;
+    }
+
+    /**
+     * Writes {@code row} as a JSON object.
+     */
+    void write(JsonGenerator generator, Row row) throws IOException {
+        generator.writeStartObject();
+        for (int i : byNumber) {
+            Object value = row.getField(i);
+            if (value == null) {
+                continue;
+            }
+            if (repeated[i]) {
+                Object[] elements = (Object[]) value;
+                if (elements.length == 0) {
+                    continue;
+                }
+                generator.writeFieldName(jsonNames[i]);
+                generator.writeStartArray();
+                for (Object element : elements) {
+                    writeValue(generator, i, element);
+                }
+                generator.writeEndArray();
+            } else if (presence[i] || !isDefault(i, value)) {
+                generator.writeFieldName(jsonNames[i]);
+                writeValue(generator, i, value);
+            }
+        }
+        generator.writeEndObject();
+    }
+
+    /**
+     * Writes the message the input is positioned in as a JSON object, straight from the wire. Gives up
+     * and returns false at the first field that is out of field number order or set a second time, as
+     * the last value would win, and at a repeated field whose values are not all in one place.
+     */
+    private boolean copy(CodedInputStream input, JsonGenerator generator) throws IOException {
+        generator.writeStartObject();
+        int previous = -1;
+        boolean inArray = false;
+        int tag;
+        while ((tag = input.readTag()) != 0) {
+            int n = Arrays.binarySearch(fieldNumbers, WireFormat.getTagFieldNumber(tag));
+            if (n < 0) {
+                // unknown fields are not printed
+                input.skipField(tag);
+                continue;
+            }
+            int i = byNumber[n];
+            if (n != previous) {
+                if (n < previous) {
+                    return false;
+                }
+                if (inArray) {
+                    generator.writeEndArray();
+                    inArray = false;
+                }
+                previous = n;
+            } else if (!repeated[i]) {
+                return false;
+            }
+            int wireType = WireFormat.getTagWireType(tag);
+            if (wireType == wireTypes[i]) {
+                if (repeated[i] && !inArray) {
+                    generator.writeFieldName(jsonNames[i]);
+                    generator.writeStartArray();
+                    inArray = true;
+                }
+                if (!copyValue(input, generator, i, repeated[i] ? null : jsonNames[i])) {
+                    return false;
+                }
+            } else if (repeated[i] && wireType == WireFormat.WIRETYPE_LENGTH_DELIMITED
+                    && wireTypes[i] != WireFormat.WIRETYPE_LENGTH_DELIMITED) {
+                // packed, which parsers accept whether or not the field is declared packed
+                int limit = input.pushLimit(input.readRawVarint32());
+                while (input.getBytesUntilLimit() > 0) {
+                    if (!inArray) {
+                        generator.writeFieldName(jsonNames[i]);
+                        generator.writeStartArray();
+                        inArray = true;
+                    }
+                    copyValue(input, generator, i, null);
+                }
+                input.popLimit(limit);
+            } else {
+                // like parsers, skip a value of the wrong wire type
+                input.skipField(tag);
+            }
+        }
+        if (inArray) {
+            generator.writeEndArray();
+        }
+        generator.writeEndObject();
+        return true;
+    }
+
+    /**
+     * Copies one value of field i. With a name, it is the value of a singular field, which is left out
+     * while it holds its default unless the field has presence; without, an element of a repeated field.
+     *
+     * @return false if a sub-message cannot be copied straight from the wire
+     */
+    private boolean copyValue(CodedInputStream input, JsonGenerator generator, int i, String name) throws IOException {
+        boolean omitDefault = name != null && !presence[i];
+        Descriptors.FieldDescriptor.Type type = types[i];
+        switch (type) {
+            case MESSAGE: {
+                int limit = input.pushLimit(input.readRawVarint32());
+                writeName(generator, name);
+                if (nested[i] != null) {
+                    if (!nested[i].copy(input, generator)) {
+                        return false;
+                    }
+                } else {
+                    writeScalar(generator, wrappedTypes[i], readWrapped(input, i));
+                }
+                input.checkLastTagWas(0);
+                input.popLimit(limit);
+                return true;
+            }
+            case STRING: {
+                String value = input.readStringRequireUtf8();
+                if (!omitDefault || !value.isEmpty()) {
+                    writeName(generator, name);
+                    generator.writeString(value);
+                }
+                return true;
+            }
+            case BYTES: {
+                byte[] value = input.readByteArray();
+                if (!omitDefault || value.length > 0) {
+                    writeName(generator, name);
+                    generator.writeString(Base64.getEncoder().encodeToString(value));
+                }
+                return true;
+            }
+            case BOOL: {
+                boolean value = input.readBool();
+                if (!omitDefault || value) {
+                    writeName(generator, name);
+                    generator.writeBoolean(value);
+                }
+                return true;
+            }
+            case DOUBLE: {
+                double value = input.readDouble();
+                if (!omitDefault || Double.doubleToRawLongBits(value) != 0) {
+                    writeName(generator, name);
+                    writeDouble(generator, value);
+                }
+                return true;
+            }
+            case FLOAT: {
+                float value = input.readFloat();
+                if (!omitDefault || Float.floatToRawIntBits(value) != 0) {
+                    writeName(generator, name);
+                    writeFloat(generator, value);
+                }
+                return true;
+            }
+            case ENUM: {
+                int value = input.readEnum();
+                if (!omitDefault || value != 0) {
+                    writeName(generator, name);
+                    String enumName = enumNames[i].get(value);
+                    if (enumName != null) {
+                        generator.writeString(enumName);
+                    } else {
+                        generator.writeNumber(value);
+                    }
+                }
+                return true;
+            }
+            case INT64:
+            case SINT64:
+            case SFIXED64:
+            case UINT64:
+            case FIXED64: {
+                long value = readLong(input, type);
+                if (!omitDefault || value != 0) {
+                    writeName(generator, name);
+                    writeLong(generator, type, value);
+                }
+                return true;
+            }
+            default: {
+                int value = readInt(input, type);
+                if (!omitDefault || value != 0) {
+                    writeName(generator, name);
+                    writeInt(generator, type, value);
+                }
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Reads the value of a wrapper such as google.protobuf.BoolValue, the default if it has none.
+     */
+    private Object readWrapped(CodedInputStream input, int i) throws IOException {
+        Descriptors.FieldDescriptor.Type type = wrappedTypes[i];
+        Object value = null;
+        int tag;
+        while ((tag = input.readTag()) != 0) {
+            if (tag != wrappedTags[i]) {
+                input.skipField(tag);
+                continue;
+            }
+            switch (type) {
+                case STRING:
+                    value = input.readStringRequireUtf8();
+                    break;
+                case BYTES:
+                    value = input.readByteArray();
+                    break;
+                case BOOL:
+                    value = input.readBool();
+                    break;
+                case DOUBLE:
+                    value = input.readDouble();
+                    break;
+                case FLOAT:
+                    value = input.readFloat();
+                    break;
+                case INT64:
+                case UINT64:
+                    value = readLong(input, type);
+                    break;
+                default:
+                    value = readInt(input, type);
+                    break;
+            }
+        }
+        if (value != null) {
+            return value;
+        }
+        switch (type) {
+            case STRING:
+                return "";
+            case BYTES:
+                return new byte[0];
+            case BOOL:
+                return false;
+            case DOUBLE:
+                return 0.0d;
+            case FLOAT:
+                return 0.0f;
+            case INT64:
+            case UINT64:
+                return 0L;
+            default:
+                return 0;
+        }
+    }
+
+    private static int readInt(CodedInputStream input, Descriptors.FieldDescriptor.Type type) throws IOException {
+        switch (type) {
+            case INT32:
+                return input.readInt32();
+            case SINT32:
+                return input.readSInt32();
+            case SFIXED32:
+                return input.readSFixed32();
+            case UINT32:
+                return input.readUInt32();
+            case FIXED32:
+                return input.readFixed32();
+            default:
+                throw new IllegalStateException("Not a 32-bit integer type: " + type);
+        }
+    }
+
+    private static long readLong(CodedInputStream input, Descriptors.FieldDescriptor.Type type) throws IOException {
+        switch (type) {
+            case INT64:
+                return input.readInt64();
+            case SINT64:
+                return input.readSInt64();
+            case SFIXED64:
+                return input.readSFixed64();
+            case UINT64:
+                return input.readUInt64();
+            case FIXED64:
+                return input.readFixed64();
+            default:
+                throw new IllegalStateException("Not a 64-bit integer type: " + type);
+        }
+    }
+
+    private static void writeName(JsonGenerator generator, String name) throws IOException {
+        if (name != null) {
+            generator.writeFieldName(name);
+        }
+    }
+
+    /**
+     * Reads the JSON object the parser is positioned at into a new Row, leaving absent fields null.
+     */
+    Row read(JsonParser parser) throws IOException {
+        if (parser.currentToken() != JsonToken.START_OBJECT) {
+            throw new IllegalArgumentException("Expected a JSON object for " + fullName + " but got " + parser.currentToken());
+        }
+        Row row = Row.withPositions(types.length);
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String name = parser.getCurrentName();
+            Integer index = fieldIndexes.get(name);
+            if (index == null) {
+                throw new IllegalArgumentException("Unknown field '" + name + "' in " + fullName);
+            }
+            int i = index;
+            if (parser.nextToken() == JsonToken.VALUE_NULL) {
+                continue;
+            }
+            if (row.getField(i) != null) {
+                throw new IllegalArgumentException("Field '" + protoNames[i] + "' of " + fullName + " is set more than once");
+            }
+            if (oneofs[i] >= 0) {
+                for (int j = 0; j < oneofs.length; j++) {
+                    if (j != i && oneofs[j] == oneofs[i] && row.getField(j) != null) {
+                        throw new IllegalArgumentException("Fields '" + protoNames[j] + "' and '" + protoNames[i]
+                                + "' of " + fullName + " belong to the same oneof");
+                    }
+                }
+            }
+            if (repeated[i]) {
+                if (parser.currentToken() != JsonToken.START_ARRAY) {
+                    throw new IllegalArgumentException("Expected an array for field '" + protoNames[i] + "' of " + fullName);
+                }
+                List<Object> elements = new ArrayList<>();
+                while (parser.nextToken() != JsonToken.END_ARRAY) {
+                    if (parser.currentToken() == JsonToken.VALUE_NULL) {
+                        throw new IllegalArgumentException("Null element in field '" + protoNames[i] + "' of " + fullName);
+                    }
+                    elements.add(readValue(parser, i));
+                }
+                row.setField(i, elements);
+            } else {
+                row.setField(i, readValue(parser, i));
+            }
+        }
+        return row;
+    }
+
+    private void writeValue(JsonGenerator generator, int i, Object value) throws IOException {
+        if (nested[i] != null) {
+            nested[i].write(generator, (Row) value);
+        } else if (types[i] == Descriptors.FieldDescriptor.Type.ENUM) {
+            String name = (String) value;
+            if (enumNumbers[i].containsKey(name)) {
+                generator.writeString(name);
+            } else {
+                // a number without a name in this version of the .proto file
+                generator.writeNumber(Integer.parseInt(name));
+            }
+        } else {
+            writeScalar(generator, wrappedTypes[i] != null ? wrappedTypes[i] : types[i], value);
+        }
+    }
+
+    private static void writeScalar(JsonGenerator generator, Descriptors.FieldDescriptor.Type type, Object value)
+            throws IOException {
+        switch (type) {
+            case STRING:
+                generator.writeString((String) value);
+                break;
+            case BYTES:
+                generator.writeString(Base64.getEncoder().encodeToString((byte[]) value));
+                break;
+            case BOOL:
+                generator.writeBoolean((Boolean) value);
+                break;
+            case DOUBLE:
+                writeDouble(generator, ((Number) value).doubleValue());
+                break;
+            case FLOAT:
+                writeFloat(generator, ((Number) value).floatValue());
+                break;
+            case INT64:
+            case SINT64:
+            case SFIXED64:
+            case UINT64:
+            case FIXED64:
+                writeLong(generator, type, ((Number) value).longValue());
+                break;
+            default:
+                writeInt(generator, type, ((Number) value).intValue());
+                break;
+        }
+    }
+
+    private static void writeDouble(JsonGenerator generator, double value) throws IOException {
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            generator.writeString(Double.toString(value));
+        } else {
+            generator.writeNumber(value);
+        }
+    }
+
+    private static void writeFloat(JsonGenerator generator, float value) throws IOException {
+        if (Float.isNaN(value) || Float.isInfinite(value)) {
+            generator.writeString(Float.toString(value));
+        } else {
+            generator.writeNumber(value);
+        }
+    }
+
+    private static void writeInt(JsonGenerator generator, Descriptors.FieldDescriptor.Type type, int value)
+            throws IOException {
+        switch (type) {
+            case INT32:
+            case SINT32:
+            case SFIXED32:
+                generator.writeNumber(value);
+                break;
+            case UINT32:
+            case FIXED32:
+                generator.writeNumber(Integer.toUnsignedLong(value));
+                break;
+            default:
+                throw new IllegalStateException("Not a scalar type: " + type);
+        }
+    }
+
+    private static void writeLong(JsonGenerator generator, Descriptors.FieldDescriptor.Type type, long value)
+            throws IOException {
+        if (type == Descriptors.FieldDescriptor.Type.UINT64 || type == Descriptors.FieldDescriptor.Type.FIXED64) {
+            generator.writeString(Long.toUnsignedString(value));
+        } else {
+            generator.writeString(Long.toString(value));
+        }
+    }
+
+    private Object readValue(JsonParser parser, int i) throws IOException {
+        if (nested[i] != null) {
+            return nested[i].read(parser);
+        }
+        if (types[i] == Descriptors.FieldDescriptor.Type.ENUM) {
+            if (parser.currentToken() == JsonToken.VALUE_NUMBER_INT) {
+                return parser.getIntValue();
+            }
+            String name = parser.currentToken() == JsonToken.VALUE_STRING ? parser.getText() : null;
+            if (name == null || !enumNumbers[i].containsKey(name)) {
+                throw invalidValue(parser, i);
+            }
+            return name;
+        }
+        try {
+            return readScalar(parser, wrappedTypes[i] != null ? wrappedTypes[i] : types[i]);
+        } catch (IllegalArgumentException | ArithmeticException e) {
+            throw invalidValue(parser, i);
+        }
+    }
+
+    /**
+     * Numbers may also be given as strings, and must be whole and in range for integer types.
+     */
+    private static Object readScalar(JsonParser parser, Descriptors.FieldDescriptor.Type type) throws IOException {
+        JsonToken token = parser.currentToken();
+        switch (type) {
+            case STRING:
+                requireString(token);
+                return parser.getText();
+            case BYTES: {
+                requireString(token);
+                String text = parser.getText();
+                try {
+                    return Base64.getDecoder().decode(text);
+                } catch (IllegalArgumentException e) {
+                    return Base64.getUrlDecoder().decode(text);
+                }
+            }
+            case BOOL:
+                if (token == JsonToken.VALUE_TRUE || token == JsonToken.VALUE_FALSE) {
+                    return token == JsonToken.VALUE_TRUE;
+                }
+                requireString(token);
+                if (!"true".equals(parser.getText()) && !"false".equals(parser.getText())) {
+                    throw new IllegalArgumentException("Not a bool");
+                }
+                return Boolean.valueOf(parser.getText());
+            case DOUBLE:
+                return readDouble(parser);
+            case FLOAT: {
+                double d = readDouble(parser);
+                float f = (float) d;
+                if (Float.isInfinite(f) && !Double.isInfinite(d)) {
+                    throw new IllegalArgumentException("Out of range for float");
+                }
+                return f;
+            }
+            case INT32:
+            case SINT32:
+            case SFIXED32:
+                if (token == JsonToken.VALUE_NUMBER_INT && parser.getNumberType() == JsonParser.NumberType.INT) {
+                    return parser.getIntValue();
+                }
+                return readInteger(parser).intValueExact();
+            case UINT32:
+            case FIXED32: {
+                long value = readInteger(parser).longValueExact();
+                if (value < 0 || value > 0xFFFFFFFFL) {
+                    throw new IllegalArgumentException("Out of range for uint32");
+                }
+                return (int) value;
+            }
+            case INT64:
+            case SINT64:
+            case SFIXED64:
+                if (token == JsonToken.VALUE_NUMBER_INT && parser.getNumberType() != JsonParser.NumberType.BIG_INTEGER) {
+                    return parser.getLongValue();
+                }
+                return readInteger(parser).longValueExact();
+            case UINT64:
+            case FIXED64: {
+                BigInteger value = readInteger(parser);
+                if (value.signum() < 0 || value.compareTo(MAX_UINT64) > 0) {
+                    throw new IllegalArgumentException("Out of range for uint64");
+                }
+                return value.longValue();
+            }
+            default:
+                throw new IllegalStateException("Not a scalar type: " + type);
+        }
+    }
+
+    private static BigInteger readInteger(JsonParser parser) throws IOException {
+        JsonToken token = parser.currentToken();
+        if (token != JsonToken.VALUE_NUMBER_INT && token != JsonToken.VALUE_NUMBER_FLOAT && token != JsonToken.VALUE_STRING) {
+            throw new IllegalArgumentException("Not a number");
+        }
+        // e.g. 1.0 or 1e3 are whole numbers too
+        return new BigDecimal(parser.getText().trim()).toBigIntegerExact();
+    }
+
+    private static double readDouble(JsonParser parser) throws IOException {
+        JsonToken token = parser.currentToken();
+        if (token == JsonToken.VALUE_NUMBER_INT || token == JsonToken.VALUE_NUMBER_FLOAT) {
+            return parser.getDoubleValue();
+        }
+        requireString(token);
+        switch (parser.getText()) {
+            case "NaN":
+                return Double.NaN;
+            case "Infinity":
+                return Double.POSITIVE_INFINITY;
+            case "-Infinity":
+                return Double.NEGATIVE_INFINITY;
+            default:
+                return new BigDecimal(parser.getText().trim()).doubleValue();
+        }
+    }
+
+    private static void requireString(JsonToken token) {
+        if (token != JsonToken.VALUE_STRING) {
+            throw new IllegalArgumentException("Not a string");
+        }
+    }
+
+    private IllegalArgumentException invalidValue(JsonParser parser, int i) throws IOException {
+        return new IllegalArgumentException("Invalid value " + parser.getText() + " for field '" + protoNames[i]
+                + "' of " + fullName);
+    }
+
+    private boolean isDefault(int i, Object value) {
+        switch (types[i]) {
+            case STRING:
+                return ((String) value).isEmpty();
+            case BYTES:
+                return ((byte[]) value).length == 0;
+            case BOOL:
+                return !(Boolean) value;
+            case DOUBLE:
+                return Double.doubleToRawLongBits(((Number) value).doubleValue()) == 0;
+            case FLOAT:
+                return Float.floatToRawIntBits(((Number) value).floatValue()) == 0;
+            case ENUM:
+                return value.equals(defaultEnumNames[i]);
+            case MESSAGE:
+                return false;
+            default:
+                return ((Number) value).longValue() == 0;
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package org.example;
+
+import com.google.protobuf.Descriptors;
+import vehicle.commands.VehicleCommands;
+import vehicle.events.VehicleEvents;
+import vehicle.objects.VehicleObjects;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Message types of the bundled .proto files by full name, e.g. {@code vehicle.objects.VehicleStay}
+ * or {@code vehicle.objects.Trackable.Vehicle}.
+ */
+final class ProtoMessageDescriptors {
+
+    private static final Map<String, Descriptors.Descriptor> MESSAGE_TYPES = new HashMap<>();
+
+    static {
+        add(VehicleObjects.getDescriptor().getMessageTypes());
+        add(VehicleEvents.getDescriptor().getMessageTypes());
+        add(VehicleCommands.getDescriptor().getMessageTypes());
+    }
+
+    private ProtoMessageDescriptors() {
+    }
+
+    static Descriptors.Descriptor find(String fullName) {
+        Descriptors.Descriptor descriptor = MESSAGE_TYPES.get(fullName);
+        if (descriptor == null) {
+            throw new IllegalArgumentException("Unknown protobuf message type: " + fullName);
+        }
+        return descriptor;
+    }
+
+    private static void add(List<Descriptors.Descriptor> messageTypes) {
+        for (Descriptors.Descriptor messageType : messageTypes) {
+            MESSAGE_TYPES.put(messageType.getFullName(), messageType);
+            add(messageType.getNestedTypes());
+        }
+    }
+}
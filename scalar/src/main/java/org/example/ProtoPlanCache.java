@@ -0,0 +1,43 @@
+package org.example;
+
+import com.google.protobuf.Descriptors;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Plans compiled per message type name, for UDFs that take the message type as an argument. The
+ * last type looked up is kept aside, as a query passes the same literal on every row.
+ * Not thread safe, like the UDF instance holding it.
+ */
+final class ProtoPlanCache<P> {
+
+    private static final Logger LOGGER = LogManager.getLogger();
+
+    private final Function<Descriptors.Descriptor, P> compiler;
+    private final Map<String, P> plans = new HashMap<>();
+    private String lastMessageType;
+    private P lastPlan;
+
+    ProtoPlanCache(Function<Descriptors.Descriptor, P> compiler) {
+        this.compiler = compiler;
+    }
+
+    P get(String messageType) {
+        if (messageType == lastMessageType || messageType.equals(lastMessageType)) {
+            return lastPlan;
+        }
+        P plan = plans.get(messageType);
+        if (plan == null) {
+            LOGGER.debug("compiling protobuf plan for {}", messageType);
+            plan = compiler.apply(ProtoMessageDescriptors.find(messageType));
+            plans.put(messageType, plan);
+        }
+        lastMessageType = messageType;
+        lastPlan = plan;
+        return plan;
+    }
+}
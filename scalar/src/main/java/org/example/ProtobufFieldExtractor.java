@@ -0,0 +1,117 @@
+package org.example;
+
+import org.apache.flink.table.functions.FunctionContext;
+import org.apache.flink.table.functions.ScalarFunction;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Pulls one field out of protobuf bytes without parsing the whole message, e.g.
+ * {@code PROTOBUF_EXTRACT(payload, 'vehicle.events.FenceEventReceived', 'event.correlation_id')}.
+ *
+ * Returns the value as a string (see {@link ProtoFieldPath#extract}). Absent fields read as their protobuf
+ * default like in VEHICLE_STAY_PROTOBUF_DESERIALIZE, or as null if a message on the path is absent or the
+ * field has presence, e.g. a google.protobuf.BoolValue.
+ *
+ * Bytes that cannot be decoded, e.g. a truncated payload, also read as null and are logged through a
+ * {@link SampledLogger}, so one corrupt record does not fail a filter on the value. An unknown message type or
+ * path is an error in the query and still fails.
+ */
+public class ProtobufFieldExtractor extends ScalarFunction {
+
+    public static final String NAME = "PROTOBUF_EXTRACT";
+
+    private static final Logger LOGGER = LogManager.getLogger();
+
+    /** Job parameter prefix of the {@link SampledLogger} settings, e.g. {@code protobuf-extract.log.rate-limit}. */
+    public static final String LOG_PREFIX = "protobuf-extract";
+
+    private static final int MAX_CACHED_PATHS = 64;
+
+    // message type and path are usually constants, so the last resolved path is checked first
+    private transient String lastMessageType;
+    private transient String lastPath;
+    private transient ProtoFieldPath lastFieldPath;
+    private transient Map<String, ProtoFieldPath> fieldPaths;
+
+    // undecodable records are logged per row, so they can be rate limited
+    private transient SampledLogger log;
+
+    private final UdfMetrics.Lazy metrics = UdfMetrics.lazy(NAME);
+
+    @Override
+    public void open(FunctionContext context) throws Exception {
+        log = SampledLogger.open(context, LOG_PREFIX, LOGGER);
+        metrics.open(context);
+    }
+
+    @Override
+    public void close() throws Exception {
+        if (log != null) {
+            log.close();
+        }
+    }
+
+    private SampledLogger getLog() {
+        if (log == null) {
+            log = SampledLogger.withDefaults(LOGGER);
+        }
+        return log;
+    }
+
+    public String eval(byte[] bytes, String messageType, String path) {
+        UdfMetrics metrics = this.metrics.get();
+        long start = metrics.start();
+        if (bytes == null || messageType == null || path == null) {
+            metrics.nullInput(start);
+            return null;
+        }
+        ProtoFieldPath fieldPath;
+        try {
+            fieldPath = getFieldPath(messageType, path);
+        } catch (Exception e) {
+            metrics.error(start);
+            LOGGER.error("Error extracting {} from {} protobuf: {}", path, messageType, e.getMessage(), e);
+            throw new RuntimeException("Failed to extract " + path + " from " + messageType + " protobuf", e);
+        }
+
+        try {
+            String value = fieldPath.extract(bytes);
+            metrics.finish(start, bytes.length, value == null ? -1 : value.length());
+            return value;
+        } catch (Exception e) {
+            metrics.error(start);
+            getLog().error("Error extracting {} from {} protobuf, returning null: {}", path, messageType, e.getMessage());
+            return null;
+        }
+    }
+
+    private ProtoFieldPath getFieldPath(String messageType, String path) {
+        if ((messageType == lastMessageType || messageType.equals(lastMessageType))
+                && (path == lastPath || path.equals(lastPath))) {
+            return lastFieldPath;
+        }
+        if (fieldPaths == null) {
+            fieldPaths = new LinkedHashMap<>(MAX_CACHED_PATHS, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, ProtoFieldPath> eldest) {
+                    return size() > MAX_CACHED_PATHS;
+                }
+            };
+        }
+        String key = messageType + '#' + path;
+        ProtoFieldPath fieldPath = fieldPaths.get(key);
+        if (fieldPath == null) {
+            LOGGER.debug("resolving {} in {}", path, messageType);
+            fieldPath = ProtoFieldPath.resolve(ProtoMessageDescriptors.find(messageType), path);
+            fieldPaths.put(key, fieldPath);
+        }
+        lastMessageType = messageType;
+        lastPath = path;
+        lastFieldPath = fieldPath;
+        return fieldPath;
+    }
+}
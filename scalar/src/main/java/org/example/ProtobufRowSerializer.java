@@ -0,0 +1,67 @@
+package org.example;
+
+import org.apache.flink.table.annotation.DataTypeHint;
+import org.apache.flink.table.annotation.InputGroup;
+import org.apache.flink.table.functions.FunctionContext;
+import org.apache.flink.table.functions.ScalarFunction;
+import org.apache.flink.types.Row;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Generic UDF for serializing a Flink Row to any message type of the bundled .proto files, e.g.
+ * {@code PROTOBUF_SERIALIZE('vehicle.objects.TransportOrder', ROW(...))}.
+ *
+ * Row fields are matched to message fields by name (as in the .proto file, or lowerCamelCase) when the
+ * Row's field names match any of the message's, otherwise by position in the order the fields are declared,
+ * as for the {@code EXPR$0, EXPR$1, ...} of {@code ROW(...)}. A Row built by name whose names match none of
+ * the message's fields is an error. See {@link RowProtoPlan} for how values are written. Each message type
+ * is compiled into a plan once.
+ */
+public class ProtobufRowSerializer extends ScalarFunction {
+
+    public static final String NAME = "PROTOBUF_SERIALIZE";
+
+    private static final Logger LOGGER = LogManager.getLogger();
+
+    // compiled on first use of each message type
+    private transient ProtoPlanCache<RowProtoPlan> plans;
+    private transient RowProtoPlan.MessageSizes messageSizes;
+
+    private final UdfMetrics.Lazy metrics = UdfMetrics.lazy(NAME);
+
+    @Override
+    public void open(FunctionContext context) throws Exception {
+        metrics.open(context);
+    }
+
+    public byte[] eval(String messageType, @DataTypeHint(inputGroup = InputGroup.ANY) Object row) {
+        UdfMetrics metrics = this.metrics.get();
+        long start = metrics.start();
+        if (messageType == null || row == null) {
+            metrics.nullInput(start);
+            return null;
+        }
+
+        try {
+            if (messageSizes == null) {
+                messageSizes = new RowProtoPlan.MessageSizes();
+            }
+            byte[] bytes = getPlan(messageType).toByteArray((Row) row, messageSizes);
+            metrics.finish(start, -1, bytes.length);
+            return bytes;
+
+        } catch (Exception e) {
+            metrics.error(start);
+            LOGGER.error("Failed to serialize Row to {} protobuf bytes: {}", messageType, e.getMessage(), e);
+            throw new RuntimeException("Failed to serialize " + messageType + " to protobuf", e);
+        }
+    }
+
+    private RowProtoPlan getPlan(String messageType) {
+        if (plans == null) {
+            plans = new ProtoPlanCache<>(RowProtoPlan::forMessage);
+        }
+        return plans.get(messageType);
+    }
+}
@@ -0,0 +1,68 @@
+package org.example;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.flink.table.functions.FunctionContext;
+import org.apache.flink.table.functions.ScalarFunction;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Converts protobuf bytes of any message type of the bundled .proto files to JSON, e.g.
+ * {@code PROTOBUF_TO_JSON(payload, 'vehicle.events.FenceEventReceived')}.
+ *
+ * The JSON follows protobuf's JSON mapping as printed by JsonFormat, see {@link ProtoJsonPlan}.
+ * Each message type is compiled into a plan once.
+ */
+public class ProtobufToJsonConverter extends ScalarFunction {
+
+    public static final String NAME = "PROTOBUF_TO_JSON";
+
+    private static final Logger LOGGER = LogManager.getLogger();
+
+    // initialized lazily to be serializable
+    private transient ObjectMapper objectMapper;
+
+    // compiled on first use of each message type
+    private transient ProtoPlanCache<ProtoJsonPlan> plans;
+
+    private final UdfMetrics.Lazy metrics = UdfMetrics.lazy(NAME);
+
+    @Override
+    public void open(FunctionContext context) throws Exception {
+        metrics.open(context);
+    }
+
+    private ObjectMapper getObjectMapper() {
+        if (objectMapper == null) {
+            objectMapper = new ObjectMapper();
+        }
+        return objectMapper;
+    }
+
+    public String eval(byte[] bytes, String messageType) {
+        UdfMetrics metrics = this.metrics.get();
+        long start = metrics.start();
+        if (bytes == null || messageType == null) {
+            metrics.nullInput(start);
+            return null;
+        }
+
+        try {
+            String json = getPlan(messageType).toJson(bytes, getObjectMapper().getFactory());
+            metrics.finish(start, bytes.length, json.length());
+            return json;
+
+        } catch (Exception e) {
+            metrics.error(start);
+            LOGGER.error("Failed to convert {} protobuf bytes to JSON: {}", messageType, e.getMessage(), e);
+            throw new RuntimeException("Failed to convert " + messageType + " protobuf to JSON", e);
+        }
+    }
+
+    private ProtoJsonPlan getPlan(String messageType) {
+        if (plans == null) {
+            plans = new ProtoPlanCache<>(ProtoJsonPlan::forMessage);
+        }
+        return plans.get(messageType);
+    }
+}
@@ -0,0 +1,1018 @@
+package org.example;
+
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.CodedOutputStream;
+import com.google.protobuf.Descriptors;
+import com.google.protobuf.WireFormat;
+import org.apache.flink.types.Row;
+
+import java.io.IOException;
+import java.lang.reflect.Array;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Precomputed plan for writing a Flink Row as a protobuf message: one entry per field with its row
+ * position and name, field number, type and tag, run by a plain loop over arrays.
+ *
+ * Entries are kept in field number order, which is the order the generated code writes, so the output
+ * is byte-for-byte the same. Like the generated code, fields without presence are not written when they
+ * hold their default value (empty string, 0, false), while null never is written. Repeated fields take
+ * an ARRAY (or a List), and numeric ones are packed as the .proto file says.
+ *
+ * Plans compiled {@link #forMessage for a message} read Row fields by name when the Row carries field
+ * names that match the message's, and otherwise by position; columns past the end of a shorter Row read
+ * as null. The names are matched once per distinct set of field names, not per row. Hand-written plans
+ * from the {@link #builder} are for Rows of a known layout and always read by position. A wrapper message
+ * such as google.protobuf.BoolValue may also be given as its bare value.
+ *
+ * Reading is the inverse and produces positional Rows: absent fields with presence (messages, wrappers,
+ * optional and oneof fields) read as null, other absent fields as their default value, e.g. "" or false.
+ * A {@link #project projected} plan only decodes some fields and skips the wire bytes of the rest.
+ *
+ * Plans are immutable and can be shared; the caller provides the scratch {@link MessageSizes}.
+ */
+final class RowProtoPlan {
+
+    private static final int DOUBLE = 0;
+    private static final int FLOAT = 1;
+    private static final int INT64 = 2;
+    private static final int UINT64 = 3;
+    private static final int INT32 = 4;
+    private static final int FIXED64 = 5;
+    private static final int FIXED32 = 6;
+    private static final int BOOL = 7;
+    private static final int STRING = 8;
+    private static final int BYTES = 9;
+    private static final int UINT32 = 10;
+    private static final int ENUM = 11;
+    private static final int SFIXED32 = 12;
+    private static final int SFIXED64 = 13;
+    private static final int SINT32 = 14;
+    private static final int SINT64 = 15;
+    private static final int MESSAGE = 16;
+
+    private static final int SINGULAR = 0;
+    private static final int REPEATED = 1;
+    private static final int PACKED = 2;
+
+    private static final byte[] NO_PREFIX = new byte[0];
+
+    private final String messageName;
+    private final boolean wrapper;
+    private final boolean byName;
+    private final int arity;
+    private final int[] fieldNumbers;
+    private final int[] rowIndexes;
+    private final String[] rowNames;
+    private final String[] jsonNames;
+    private final int[] kinds;
+    private final int[] cardinalities;
+    private final boolean[] presence;
+    private final int[] tags;
+    private final int[] tagSizes;
+    private final RowProtoPlan[] nested;
+    private final Map<String, Integer>[] enumNumbers;
+    private final Map<Integer, String>[] enumNames;
+    // entries a projection leaves out
+    private final boolean[] skipped;
+    // how the field names of the last named Row matched, replaced when a Row has other names
+    private volatile Binding binding;
+
+    @SuppressWarnings("unchecked")
+    private RowProtoPlan(Descriptors.Descriptor descriptor, List<Entry> entries, boolean byName) {
+        int fieldCount = entries.size();
+        this.messageName = descriptor.getFullName();
+        this.wrapper = isWrapper(descriptor);
+        this.byName = byName;
+        this.fieldNumbers = new int[fieldCount];
+        this.rowIndexes = new int[fieldCount];
+        this.rowNames = new String[fieldCount];
+        this.jsonNames = new String[fieldCount];
+        this.kinds = new int[fieldCount];
+        this.cardinalities = new int[fieldCount];
+        this.presence = new boolean[fieldCount];
+        this.tags = new int[fieldCount];
+        this.tagSizes = new int[fieldCount];
+        this.nested = new RowProtoPlan[fieldCount];
+        this.enumNumbers = new Map[fieldCount];
+        this.enumNames = new Map[fieldCount];
+        this.skipped = new boolean[fieldCount];
+        int columns = 0;
+        for (int i = 0; i < fieldCount; i++) {
+            Entry entry = entries.get(i);
+            if (i > 0 && entry.fieldNumber == fieldNumbers[i - 1]) {
+                throw new IllegalArgumentException("Duplicate field number " + entry.fieldNumber);
+            }
+            int cardinality = entry.kind == MESSAGE && entry.cardinality == PACKED ? REPEATED : entry.cardinality;
+            fieldNumbers[i] = entry.fieldNumber;
+            rowIndexes[i] = entry.rowIndex;
+            rowNames[i] = entry.rowName;
+            jsonNames[i] = entry.jsonName;
+            kinds[i] = entry.kind;
+            cardinalities[i] = cardinality;
+            presence[i] = entry.presence;
+            tags[i] = WireFormat.makeTag(entry.fieldNumber, wireType(entry.kind, cardinality));
+            tagSizes[i] = CodedOutputStream.computeUInt32SizeNoTag(tags[i]);
+            enumNumbers[i] = entry.enumNumbers;
+            if (entry.enumNumbers != null) {
+                enumNames[i] = new HashMap<>();
+                for (Map.Entry<String, Integer> value : entry.enumNumbers.entrySet()) {
+                    enumNames[i].putIfAbsent(value.getValue(), value.getKey());
+                }
+            }
+            columns = Math.max(columns, entry.rowIndex + 1);
+        }
+        this.arity = columns;
+    }
+
+    /**
+     * A copy sharing everything but the projection.
+     */
+    private RowProtoPlan(RowProtoPlan plan) {
+        this.messageName = plan.messageName;
+        this.wrapper = plan.wrapper;
+        this.byName = plan.byName;
+        this.arity = plan.arity;
+        this.fieldNumbers = plan.fieldNumbers;
+        this.rowIndexes = plan.rowIndexes;
+        this.rowNames = plan.rowNames;
+        this.jsonNames = plan.jsonNames;
+        this.kinds = plan.kinds;
+        this.cardinalities = plan.cardinalities;
+        this.presence = plan.presence;
+        this.tags = plan.tags;
+        this.tagSizes = plan.tagSizes;
+        this.nested = plan.nested.clone();
+        this.enumNumbers = plan.enumNumbers;
+        this.enumNames = plan.enumNames;
+        this.skipped = plan.skipped.clone();
+    }
+
+    /**
+     * Starts a hand-written plan for {@code descriptor}, for Rows that do not follow the message's layout.
+     */
+    static Builder builder(Descriptors.Descriptor descriptor) {
+        return new Builder(descriptor);
+    }
+
+    /**
+     * Compiles a plan for {@code descriptor}, matching Row positions to the fields' declaration order.
+     */
+    static RowProtoPlan forMessage(Descriptors.Descriptor descriptor) {
+        return forMessage(descriptor, new HashMap<>());
+    }
+
+    private static RowProtoPlan forMessage(Descriptors.Descriptor descriptor,
+                                           Map<Descriptors.Descriptor, RowProtoPlan> plans) {
+        RowProtoPlan plan = plans.get(descriptor);
+        if (plan != null) {
+            // a recursive message type
+            return plan;
+        }
+        List<Descriptors.FieldDescriptor> fields = new ArrayList<>(descriptor.getFields());
+        fields.sort(Comparator.comparingInt(Descriptors.FieldDescriptor::getNumber));
+        List<Entry> entries = new ArrayList<>(fields.size());
+        for (Descriptors.FieldDescriptor field : fields) {
+            entries.add(entry(field, field.getIndex()));
+        }
+        plan = new RowProtoPlan(descriptor, entries, true);
+        plans.put(descriptor, plan);
+        for (int i = 0; i < fields.size(); i++) {
+            if (plan.kinds[i] == MESSAGE) {
+                plan.nested[i] = forMessage(fields.get(i).getMessageType(), plans);
+            }
+        }
+        return plan;
+    }
+
+    private static Entry entry(Descriptors.FieldDescriptor field, int rowIndex) {
+        if (field.isMapField()) {
+            throw new IllegalArgumentException("Map fields are not supported: " + field.getFullName());
+        }
+        int kind = kindOf(field);
+        Map<String, Integer> enumNumbers = null;
+        if (kind == ENUM) {
+            enumNumbers = new LinkedHashMap<>();
+            for (Descriptors.EnumValueDescriptor value : field.getEnumType().getValues()) {
+                enumNumbers.put(value.getName(), value.getNumber());
+            }
+        }
+        int cardinality = !field.isRepeated() ? SINGULAR : field.isPacked() ? PACKED : REPEATED;
+        return new Entry(rowIndex, field.getName(), field.getJsonName(), field.getNumber(), kind, cardinality,
+                !field.isRepeated() && field.hasPresence(), enumNumbers);
+    }
+
+    /**
+     * A plan that only reads the given fields, e.g. {@code tenant_alias} or {@code trackable_vehicle.object}
+     * for a whole sub-message or just one of its fields. The other fields read as null.
+     */
+    RowProtoPlan project(Collection<String> paths) {
+        Map<String, List<String>> subPaths = new LinkedHashMap<>();
+        for (String path : paths) {
+            int dot = path.indexOf('.');
+            String field = dot < 0 ? path : path.substring(0, dot);
+            // a null sub-path stands for the whole field
+            subPaths.computeIfAbsent(field, f -> new ArrayList<>()).add(dot < 0 ? null : path.substring(dot + 1));
+        }
+        RowProtoPlan projected = new RowProtoPlan(this);
+        for (int i = 0; i < kinds.length; i++) {
+            List<String> fieldPaths = subPaths.remove(rowNames[i]);
+            if (fieldPaths == null) {
+                projected.skipped[i] = true;
+            } else if (!fieldPaths.contains(null)) {
+                if (nested[i] == null) {
+                    throw new IllegalArgumentException("Not a message field: " + rowNames[i]);
+                }
+                projected.nested[i] = nested[i].project(fieldPaths);
+            }
+        }
+        if (!subPaths.isEmpty()) {
+            throw new IllegalArgumentException("Unknown fields " + subPaths.keySet());
+        }
+        return projected;
+    }
+
+    /**
+     * Serializes {@code row} into a new array of exactly the serialized size.
+     */
+    byte[] toByteArray(Row row, MessageSizes sizes) throws IOException {
+        return toByteArray(row, sizes, NO_PREFIX);
+    }
+
+    /**
+     * Serializes {@code row} behind {@code prefix}, e.g. a wire-format header, in one array.
+     */
+    byte[] toByteArray(Row row, MessageSizes sizes, byte[] prefix) throws IOException {
+        sizes.clear();
+        int size = size(row, sizes);
+        byte[] result = new byte[prefix.length + size];
+        System.arraycopy(prefix, 0, result, 0, prefix.length);
+        CodedOutputStream output = CodedOutputStream.newInstance(result, prefix.length, size);
+        write(output, row, sizes);
+        output.checkNoSpaceLeft();
+        return result;
+    }
+
+    /**
+     * Serialized size of {@code row}, recording the size of every sub-message and packed field in
+     * {@code sizes} for the following {@link #write}.
+     */
+    int size(Row row, MessageSizes sizes) {
+        String[] fields = bind(row);
+        int size = 0;
+        for (int i = 0; i < kinds.length; i++) {
+            Object value = getValue(row, fields, i);
+            if (value == null) {
+                continue;
+            }
+            switch (cardinalities[i]) {
+                case SINGULAR:
+                    if (presence[i] || !isDefault(i, value)) {
+                        size += elementSize(i, value, sizes);
+                    }
+                    break;
+                case REPEATED: {
+                    Object[] elements = toArray(value);
+                    for (Object element : elements) {
+                        if (element != null) {
+                            size += elementSize(i, element, sizes);
+                        }
+                    }
+                    break;
+                }
+                default: {
+                    int slot = sizes.reserve();
+                    int dataSize = 0;
+                    for (Object element : toArray(value)) {
+                        if (element != null) {
+                            dataSize += valueSize(i, element);
+                        }
+                    }
+                    sizes.set(slot, dataSize);
+                    if (dataSize > 0) {
+                        size += tagSizes[i] + CodedOutputStream.computeUInt32SizeNoTag(dataSize) + dataSize;
+                    }
+                    break;
+                }
+            }
+        }
+        return size;
+    }
+
+    void write(CodedOutputStream output, Row row, MessageSizes sizes) throws IOException {
+        String[] fields = bind(row);
+        for (int i = 0; i < kinds.length; i++) {
+            Object value = getValue(row, fields, i);
+            if (value == null) {
+                continue;
+            }
+            switch (cardinalities[i]) {
+                case SINGULAR:
+                    if (presence[i] || !isDefault(i, value)) {
+                        writeElement(output, i, value, sizes);
+                    }
+                    break;
+                case REPEATED: {
+                    for (Object element : toArray(value)) {
+                        if (element != null) {
+                            writeElement(output, i, element, sizes);
+                        }
+                    }
+                    break;
+                }
+                default: {
+                    int dataSize = sizes.next();
+                    if (dataSize > 0) {
+                        output.writeUInt32NoTag(tags[i]);
+                        output.writeUInt32NoTag(dataSize);
+                        for (Object element : toArray(value)) {
+                            if (element != null) {
+                                writeValue(output, i, element);
+                            }
+                        }
+                    }
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * Parses a whole message into a positional Row.
+     */
+    Row parse(byte[] bytes) throws IOException {
+        CodedInputStream input = CodedInputStream.newInstance(bytes);
+        Row row = Row.withPositions(arity);
+        read(input, row);
+        return row;
+    }
+
+    /**
+     * Reads fields into {@code row} up to the end of the input or its current limit. Singular fields
+     * that occur more than once follow protobuf's rules: the last value wins and sub-messages merge.
+     */
+    private void read(CodedInputStream input, Row row) throws IOException {
+        for (int i = 0; i < kinds.length; i++) {
+            // a Row being merged into keeps its values
+            if (!skipped[i] && !presence[i] && cardinalities[i] == SINGULAR && row.getField(rowIndexes[i]) == null) {
+                row.setField(rowIndexes[i], defaultValue(i));
+            }
+        }
+        int hint = 0;
+        int tag;
+        while ((tag = input.readTag()) != 0) {
+            int fieldNumber = WireFormat.getTagFieldNumber(tag);
+            // fields usually come in field number order
+            int i = hint < fieldNumbers.length && fieldNumbers[hint] == fieldNumber
+                    ? hint
+                    : Arrays.binarySearch(fieldNumbers, fieldNumber);
+            if (i < 0 || skipped[i]) {
+                input.skipField(tag);
+                continue;
+            }
+            hint = i + 1;
+            int wireType = WireFormat.getTagWireType(tag);
+            if (cardinalities[i] == SINGULAR) {
+                if (wireType != elementWireType(i)) {
+                    input.skipField(tag);
+                } else if (kinds[i] == MESSAGE) {
+                    row.setField(rowIndexes[i], readMessage(input, i, row.getField(rowIndexes[i])));
+                } else {
+                    row.setField(rowIndexes[i], readValue(input, i));
+                }
+                continue;
+            }
+            List<Object> elements = elements(row, rowIndexes[i]);
+            if (wireType == elementWireType(i)) {
+                elements.add(kinds[i] == MESSAGE ? readMessage(input, i, null) : readValue(input, i));
+            } else if (wireType == WireFormat.WIRETYPE_LENGTH_DELIMITED && kinds[i] != MESSAGE
+                    && kinds[i] != STRING && kinds[i] != BYTES) {
+                // packed, which parsers accept whether or not the field is declared packed
+                int limit = input.pushLimit(input.readRawVarint32());
+                while (input.getBytesUntilLimit() > 0) {
+                    elements.add(readValue(input, i));
+                }
+                input.popLimit(limit);
+            } else {
+                input.skipField(tag);
+            }
+        }
+        for (int i = 0; i < kinds.length; i++) {
+            if (!skipped[i] && cardinalities[i] != SINGULAR) {
+                Object value = row.getField(rowIndexes[i]);
+                if (value instanceof List) {
+                    List<?> elements = (List<?>) value;
+                    row.setField(rowIndexes[i], elements.toArray((Object[]) Array.newInstance(javaType(i), elements.size())));
+                } else if (value == null) {
+                    row.setField(rowIndexes[i], Array.newInstance(javaType(i), 0));
+                }
+                // otherwise a Row being merged into keeps its array
+            }
+        }
+    }
+
+    /**
+     * The elements of a repeated field read so far, collected in a List until the message ends.
+     */
+    @SuppressWarnings("unchecked")
+    private static List<Object> elements(Row row, int index) {
+        Object value = row.getField(index);
+        if (value instanceof List) {
+            return (List<Object>) value;
+        }
+        // a Row being merged into already holds an array
+        List<Object> elements = value == null ? new ArrayList<>() : new ArrayList<>(Arrays.asList((Object[]) value));
+        row.setField(index, elements);
+        return elements;
+    }
+
+    private Object readMessage(CodedInputStream input, int i, Object previous) throws IOException {
+        int limit = input.pushLimit(input.readRawVarint32());
+        RowProtoPlan plan = nested[i];
+        Object value;
+        if (plan.wrapper) {
+            // wrappers read as their bare value
+            Row wrapped = Row.withPositions(1);
+            if (previous != null) {
+                wrapped.setField(0, previous);
+            }
+            plan.read(input, wrapped);
+            value = wrapped.getField(0);
+        } else if (previous instanceof Row) {
+            plan.read(input, (Row) previous);
+            value = previous;
+        } else {
+            Row row = Row.withPositions(plan.arity);
+            plan.read(input, row);
+            value = row;
+        }
+        input.checkLastTagWas(0);
+        input.popLimit(limit);
+        return value;
+    }
+
+    private Object readValue(CodedInputStream input, int i) throws IOException {
+        switch (kinds[i]) {
+            case STRING:
+                return input.readStringRequireUtf8();
+            case BYTES:
+                return input.readByteArray();
+            case BOOL:
+                return input.readBool();
+            case DOUBLE:
+                return input.readDouble();
+            case FLOAT:
+                return input.readFloat();
+            case INT32:
+                return input.readInt32();
+            case UINT32:
+                return input.readUInt32();
+            case SINT32:
+                return input.readSInt32();
+            case FIXED32:
+                return input.readFixed32();
+            case SFIXED32:
+                return input.readSFixed32();
+            case INT64:
+                return input.readInt64();
+            case UINT64:
+                return input.readUInt64();
+            case SINT64:
+                return input.readSInt64();
+            case FIXED64:
+                return input.readFixed64();
+            case SFIXED64:
+                return input.readSFixed64();
+            case ENUM:
+                return enumName(i, input.readEnum());
+            default:
+                throw new IllegalStateException("Not a scalar field");
+        }
+    }
+
+    private Object defaultValue(int i) {
+        switch (kinds[i]) {
+            case STRING:
+                return "";
+            case BYTES:
+                return new byte[0];
+            case BOOL:
+                return false;
+            case DOUBLE:
+                return 0.0d;
+            case FLOAT:
+                return 0.0f;
+            case INT64:
+            case UINT64:
+            case SINT64:
+            case FIXED64:
+            case SFIXED64:
+                return 0L;
+            case ENUM:
+                return enumName(i, 0);
+            case MESSAGE:
+                return null;
+            default:
+                return 0;
+        }
+    }
+
+    /**
+     * Enums read as their name, or as the number if it is not a known value.
+     */
+    private String enumName(int i, int number) {
+        String name = enumNames[i].get(number);
+        return name != null ? name : String.valueOf(number);
+    }
+
+    private Class<?> javaType(int i) {
+        switch (kinds[i]) {
+            case STRING:
+            case ENUM:
+                return String.class;
+            case BYTES:
+                return byte[].class;
+            case BOOL:
+                return Boolean.class;
+            case DOUBLE:
+                return Double.class;
+            case FLOAT:
+                return Float.class;
+            case INT64:
+            case UINT64:
+            case SINT64:
+            case FIXED64:
+            case SFIXED64:
+                return Long.class;
+            case MESSAGE:
+                return nested[i].wrapper ? nested[i].javaType(0) : Row.class;
+            default:
+                return Integer.class;
+        }
+    }
+
+    private int elementWireType(int i) {
+        return wireType(kinds[i], SINGULAR);
+    }
+
+    /**
+     * @param fields the Row field name per entry from {@link #bind}, or null to read by position
+     */
+    private Object getValue(Row row, String[] fields, int i) {
+        if (fields == null) {
+            int index = rowIndexes[i];
+            return index < row.getArity() ? row.getField(index) : null;
+        }
+        String field = fields[i];
+        return field == null ? null : row.getField(field);
+    }
+
+    /**
+     * @return the Row field name to read per entry, null for entries the Row has no field for, or
+     * null instead of the array if {@code row} is read by position
+     */
+    private String[] bind(Row row) {
+        if (!byName) {
+            return null;
+        }
+        Set<String> names = row.getFieldNames(true);
+        if (names == null) {
+            return null;
+        }
+        Binding last = binding;
+        if (last == null || !last.matches(names)) {
+            last = new Binding(names, resolve(row, names));
+            binding = last;
+        }
+        return last.fields;
+    }
+
+    private String[] resolve(Row row, Set<String> names) {
+        String[] fields = new String[kinds.length];
+        boolean matched = false;
+        for (int i = 0; i < kinds.length; i++) {
+            if (names.contains(rowNames[i])) {
+                fields[i] = rowNames[i];
+            } else if (names.contains(jsonNames[i])) {
+                fields[i] = jsonNames[i];
+            }
+            matched |= fields[i] != null;
+        }
+        if (matched || names.isEmpty()) {
+            return fields;
+        }
+        if (row.getFieldNames(false) != null) {
+            // a Row in name-based field mode cannot be read by position
+            throw new IllegalArgumentException("None of the Row fields " + names + " is a field of " + messageName);
+        }
+        // e.g. EXPR$0, EXPR$1, ... of SQL's ROW(...) constructor
+        return null;
+    }
+
+    /**
+     * Size of one tagged value, i.e. a singular field or one element of a non-packed repeated field.
+     */
+    private int elementSize(int i, Object value, MessageSizes sizes) {
+        if (kinds[i] != MESSAGE) {
+            return tagSizes[i] + valueSize(i, value);
+        }
+        int slot = sizes.reserve();
+        int messageSize = nested[i].messageSize(value, sizes);
+        sizes.set(slot, messageSize);
+        return tagSizes[i] + CodedOutputStream.computeUInt32SizeNoTag(messageSize) + messageSize;
+    }
+
+    private void writeElement(CodedOutputStream output, int i, Object value, MessageSizes sizes) throws IOException {
+        output.writeUInt32NoTag(tags[i]);
+        if (kinds[i] != MESSAGE) {
+            writeValue(output, i, value);
+            return;
+        }
+        output.writeUInt32NoTag(sizes.next());
+        nested[i].writeMessage(output, value, sizes);
+    }
+
+    private int messageSize(Object value, MessageSizes sizes) {
+        if (value instanceof Row) {
+            return size((Row) value, sizes);
+        }
+        checkWrapper(value);
+        return isDefault(0, value) ? 0 : tagSizes[0] + valueSize(0, value);
+    }
+
+    private void writeMessage(CodedOutputStream output, Object value, MessageSizes sizes) throws IOException {
+        if (value instanceof Row) {
+            write(output, (Row) value, sizes);
+        } else if (!isDefault(0, value)) {
+            output.writeUInt32NoTag(tags[0]);
+            writeValue(output, 0, value);
+        }
+    }
+
+    private void checkWrapper(Object value) {
+        if (!wrapper) {
+            throw new IllegalArgumentException("Expected a ROW for a message field but got " + value.getClass().getName());
+        }
+    }
+
+    private boolean isDefault(int i, Object value) {
+        switch (kinds[i]) {
+            case STRING:
+                return ((String) value).isEmpty();
+            case BYTES:
+                return ((byte[]) value).length == 0;
+            case BOOL:
+                return !(Boolean) value;
+            case DOUBLE:
+                return Double.doubleToRawLongBits(((Number) value).doubleValue()) == 0;
+            case FLOAT:
+                return Float.floatToRawIntBits(((Number) value).floatValue()) == 0;
+            case ENUM:
+                return enumNumber(i, value) == 0;
+            case INT64:
+            case UINT64:
+            case FIXED64:
+            case SFIXED64:
+            case SINT64:
+                return ((Number) value).longValue() == 0;
+            case MESSAGE:
+                return false;
+            default:
+                return ((Number) value).intValue() == 0;
+        }
+    }
+
+    /**
+     * Size of a value without its tag.
+     */
+    private int valueSize(int i, Object value) {
+        switch (kinds[i]) {
+            case STRING:
+                return CodedOutputStream.computeStringSizeNoTag((String) value);
+            case BYTES:
+                return CodedOutputStream.computeByteArraySizeNoTag((byte[]) value);
+            case BOOL:
+                return 1;
+            case DOUBLE:
+            case FIXED64:
+            case SFIXED64:
+                return 8;
+            case FLOAT:
+            case FIXED32:
+            case SFIXED32:
+                return 4;
+            case INT32:
+                return CodedOutputStream.computeInt32SizeNoTag(((Number) value).intValue());
+            case UINT32:
+                return CodedOutputStream.computeUInt32SizeNoTag(((Number) value).intValue());
+            case SINT32:
+                return CodedOutputStream.computeSInt32SizeNoTag(((Number) value).intValue());
+            case INT64:
+                return CodedOutputStream.computeInt64SizeNoTag(((Number) value).longValue());
+            case UINT64:
+                return CodedOutputStream.computeUInt64SizeNoTag(((Number) value).longValue());
+            case SINT64:
+                return CodedOutputStream.computeSInt64SizeNoTag(((Number) value).longValue());
+            case ENUM:
+                return CodedOutputStream.computeEnumSizeNoTag(enumNumber(i, value));
+            default:
+                throw new IllegalStateException("Not a scalar field");
+        }
+    }
+
+    private void writeValue(CodedOutputStream output, int i, Object value) throws IOException {
+        switch (kinds[i]) {
+            case STRING:
+                output.writeStringNoTag((String) value);
+                break;
+            case BYTES:
+                output.writeByteArrayNoTag((byte[]) value);
+                break;
+            case BOOL:
+                output.writeBoolNoTag((Boolean) value);
+                break;
+            case DOUBLE:
+                output.writeDoubleNoTag(((Number) value).doubleValue());
+                break;
+            case FLOAT:
+                output.writeFloatNoTag(((Number) value).floatValue());
+                break;
+            case FIXED64:
+            case SFIXED64:
+                output.writeFixed64NoTag(((Number) value).longValue());
+                break;
+            case FIXED32:
+            case SFIXED32:
+                output.writeFixed32NoTag(((Number) value).intValue());
+                break;
+            case INT32:
+                output.writeInt32NoTag(((Number) value).intValue());
+                break;
+            case UINT32:
+                output.writeUInt32NoTag(((Number) value).intValue());
+                break;
+            case SINT32:
+                output.writeSInt32NoTag(((Number) value).intValue());
+                break;
+            case INT64:
+                output.writeInt64NoTag(((Number) value).longValue());
+                break;
+            case UINT64:
+                output.writeUInt64NoTag(((Number) value).longValue());
+                break;
+            case SINT64:
+                output.writeSInt64NoTag(((Number) value).longValue());
+                break;
+            case ENUM:
+                output.writeEnumNoTag(enumNumber(i, value));
+                break;
+            default:
+                throw new IllegalStateException("Not a scalar field");
+        }
+    }
+
+    /**
+     * Enums may be given by name or by number.
+     */
+    private int enumNumber(int i, Object value) {
+        if (value instanceof Number) {
+            return ((Number) value).intValue();
+        }
+        Integer number = enumNumbers[i].get((String) value);
+        if (number == null) {
+            throw new IllegalArgumentException("Unknown value '" + value + "' for enum field " + rowNames[i]);
+        }
+        return number;
+    }
+
+    private static Object[] toArray(Object value) {
+        if (value instanceof Object[]) {
+            return (Object[]) value;
+        }
+        if (value instanceof List) {
+            return ((List<?>) value).toArray();
+        }
+        // primitive arrays, e.g. for ARRAY<DOUBLE NOT NULL>
+        Object[] elements = new Object[Array.getLength(value)];
+        for (int i = 0; i < elements.length; i++) {
+            elements[i] = Array.get(value, i);
+        }
+        return elements;
+    }
+
+    private static int kindOf(Descriptors.FieldDescriptor field) {
+        switch (field.getType()) {
+            case DOUBLE:
+                return DOUBLE;
+            case FLOAT:
+                return FLOAT;
+            case INT64:
+                return INT64;
+            case UINT64:
+                return UINT64;
+            case INT32:
+                return INT32;
+            case FIXED64:
+                return FIXED64;
+            case FIXED32:
+                return FIXED32;
+            case BOOL:
+                return BOOL;
+            case STRING:
+                return STRING;
+            case BYTES:
+                return BYTES;
+            case UINT32:
+                return UINT32;
+            case ENUM:
+                return ENUM;
+            case SFIXED32:
+                return SFIXED32;
+            case SFIXED64:
+                return SFIXED64;
+            case SINT32:
+                return SINT32;
+            case SINT64:
+                return SINT64;
+            case MESSAGE:
+                return MESSAGE;
+            default:
+                throw new IllegalArgumentException("Unsupported field type " + field.getType() + ": " + field.getFullName());
+        }
+    }
+
+    /**
+     * Wire type of a single value of {@code field}, as written outside a packed field.
+     */
+    static int wireType(Descriptors.FieldDescriptor field) {
+        return wireType(kindOf(field), SINGULAR);
+    }
+
+    private static int wireType(int kind, int cardinality) {
+        if (cardinality == PACKED) {
+            return WireFormat.WIRETYPE_LENGTH_DELIMITED;
+        }
+        switch (kind) {
+            case DOUBLE:
+            case FIXED64:
+            case SFIXED64:
+                return WireFormat.WIRETYPE_FIXED64;
+            case FLOAT:
+            case FIXED32:
+            case SFIXED32:
+                return WireFormat.WIRETYPE_FIXED32;
+            case STRING:
+            case BYTES:
+            case MESSAGE:
+                return WireFormat.WIRETYPE_LENGTH_DELIMITED;
+            default:
+                return WireFormat.WIRETYPE_VARINT;
+        }
+    }
+
+    static boolean isWrapper(Descriptors.Descriptor descriptor) {
+        return descriptor.getFullName().startsWith("google.protobuf.")
+                && descriptor.getName().endsWith("Value")
+                && descriptor.getFields().size() == 1
+                && descriptor.getFields().get(0).getNumber() == 1;
+    }
+
+    /**
+     * Scratch space for the sizes of sub-messages and packed fields: the size pass records them in
+     * the order the write pass reads them back. Not thread-safe; keep one per function instance.
+     */
+    static final class MessageSizes {
+        private int[] sizes = new int[16];
+        private int reserved;
+        private int read;
+
+        void clear() {
+            reserved = 0;
+            read = 0;
+        }
+
+        private int reserve() {
+            if (reserved == sizes.length) {
+                sizes = Arrays.copyOf(sizes, reserved * 2);
+            }
+            return reserved++;
+        }
+
+        private void set(int slot, int size) {
+            sizes[slot] = size;
+        }
+
+        private int next() {
+            return sizes[read++];
+        }
+    }
+
+    private static final class Binding {
+        private final Set<String> source;
+        private final Set<String> names;
+        private final String[] fields;
+
+        private Binding(Set<String> names, String[] fields) {
+            this.source = names;
+            this.names = new HashSet<>(names);
+            this.fields = fields;
+        }
+
+        private boolean matches(Set<String> rowNames) {
+            // Flink's Rows of one type share their names; a Row built by hand may only gain names
+            return rowNames == source && rowNames.size() == names.size() || rowNames.equals(names);
+        }
+    }
+
+    private static final class Entry {
+        private final int rowIndex;
+        private final String rowName;
+        private final String jsonName;
+        private final int fieldNumber;
+        private final int kind;
+        private final int cardinality;
+        private final boolean presence;
+        private final Map<String, Integer> enumNumbers;
+
+        private Entry(int rowIndex, String rowName, String jsonName, int fieldNumber, int kind, int cardinality,
+                      boolean presence, Map<String, Integer> enumNumbers) {
+            this.rowIndex = rowIndex;
+            this.rowName = rowName;
+            this.jsonName = jsonName;
+            this.fieldNumber = fieldNumber;
+            this.kind = kind;
+            this.cardinality = cardinality;
+            this.presence = presence;
+            this.enumNumbers = enumNumbers;
+        }
+    }
+
+    /**
+     * For hand-written plans over positional Rows whose columns are a subset of the message's fields,
+     * possibly in a different order. Column names are the field names.
+     */
+    static final class Builder {
+        private final Descriptors.Descriptor descriptor;
+        private final List<Entry> entries = new ArrayList<>();
+        private final Map<Integer, RowProtoPlan> nested = new HashMap<>();
+
+        private Builder(Descriptors.Descriptor descriptor) {
+            this.descriptor = descriptor;
+        }
+
+        /**
+         * Column {@code rowIndex} holds field {@code fieldNumber}; sub-messages follow their own layout.
+         */
+        Builder field(int rowIndex, int fieldNumber) {
+            Descriptors.FieldDescriptor field = descriptor.findFieldByNumber(fieldNumber);
+            if (field == null) {
+                throw new IllegalArgumentException("No field " + fieldNumber + " in " + descriptor.getFullName());
+            }
+            entries.add(entry(field, rowIndex));
+            return this;
+        }
+
+        /**
+         * Consecutive columns starting at {@code firstRowIndex}, one per field number.
+         */
+        Builder fields(int firstRowIndex, int... fieldNumbers) {
+            for (int i = 0; i < fieldNumbers.length; i++) {
+                field(firstRowIndex + i, fieldNumbers[i]);
+            }
+            return this;
+        }
+
+        /**
+         * A sub-message column whose Row has the layout of {@code plan}.
+         */
+        Builder message(int rowIndex, int fieldNumber, RowProtoPlan plan) {
+            field(rowIndex, fieldNumber);
+            nested.put(fieldNumber, plan);
+            return this;
+        }
+
+        RowProtoPlan build() {
+            List<Entry> sorted = new ArrayList<>(entries);
+            sorted.sort(Comparator.comparingInt(entry -> entry.fieldNumber));
+            RowProtoPlan plan = new RowProtoPlan(descriptor, sorted, false);
+            for (int i = 0; i < sorted.size(); i++) {
+                if (plan.kinds[i] == MESSAGE) {
+                    RowProtoPlan messagePlan = nested.get(plan.fieldNumbers[i]);
+                    plan.nested[i] = messagePlan != null
+                            ? messagePlan
+                            : forMessage(descriptor.findFieldByNumber(plan.fieldNumbers[i]).getMessageType());
+                }
+            }
+            return plan;
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package org.example;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * An ordered list of sizes, each known under one or more names (e.g. "Small" and "S").
+ *
+ * The names are compiled into a case-insensitive open-addressing index from name to position,
+ * so a lookup is a single hash and probe with no allocation, streams or lambdas.
+ */
+final class SizeLadder {
+
+    private final int size;
+    private final String[] names;
+    private final int[] hashes;
+    private final int[] ordinals;
+    private final int mask;
+
+    /**
+     * @param sizes smallest first; each entry lists the names of one size. If a name occurs
+     *              more than once, its first (smallest) occurrence wins.
+     */
+    SizeLadder(List<String[]> sizes) {
+        int count = 0;
+        for (String[] aliases : sizes) {
+            count += aliases.length;
+        }
+        int capacity = Integer.highestOneBit(Math.max(count, 1) * 2 - 1) << 1;
+        this.size = sizes.size();
+        this.names = new String[capacity];
+        this.hashes = new int[capacity];
+        this.ordinals = new int[capacity];
+        this.mask = capacity - 1;
+        for (int ordinal = 0; ordinal < sizes.size(); ordinal++) {
+            for (String name : sizes.get(ordinal)) {
+                if (ordinalOf(name) < 0) {
+                    int hash = hash(name);
+                    int slot = hash & mask;
+                    while (names[slot] != null) {
+                        slot = (slot + 1) & mask;
+                    }
+                    names[slot] = name;
+                    hashes[slot] = hash;
+                    ordinals[slot] = ordinal;
+                }
+            }
+        }
+    }
+
+    /**
+     * Parses a ladder such as {@code X-Small|XS,Small|S,Medium|M}: sizes smallest first,
+     * separated by commas, alternative names of the same size separated by '|'.
+     */
+    static SizeLadder parse(String definition) {
+        List<String[]> sizes = new ArrayList<>();
+        for (String size : definition.split(",")) {
+            List<String> names = new ArrayList<>();
+            for (String name : size.split("\\|")) {
+                if (!name.trim().isEmpty()) {
+                    names.add(name.trim());
+                }
+            }
+            if (names.isEmpty()) {
+                throw new IllegalArgumentException("Empty size in ladder '" + definition + "'");
+            }
+            sizes.add(names.toArray(new String[0]));
+        }
+        return new SizeLadder(sizes);
+    }
+
+    /**
+     * Parses named ladders such as {@code eu=36,38,40;kids=92,98,104}, separated by ';'.
+     * Ladder names are lower-cased, see {@link #ladderKey}.
+     */
+    static Map<String, SizeLadder> parseAll(String definitions) {
+        Map<String, SizeLadder> ladders = new LinkedHashMap<>();
+        for (String definition : definitions.split(";")) {
+            if (definition.trim().isEmpty()) {
+                continue;
+            }
+            int separator = definition.indexOf('=');
+            if (separator <= 0) {
+                throw new IllegalArgumentException("Expected name=sizes but got '" + definition.trim() + "'");
+            }
+            ladders.put(ladderKey(definition.substring(0, separator)), parse(definition.substring(separator + 1)));
+        }
+        return ladders;
+    }
+
+    /**
+     * Ladder names are matched ignoring case and surrounding whitespace.
+     */
+    static String ladderKey(String name) {
+        return name.trim().toLowerCase(Locale.ROOT);
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * @return the position of {@code name} on this ladder, ignoring case, or -1 if it is unknown or null
+     */
+    int ordinalOf(String name) {
+        if (name == null) {
+            return -1;
+        }
+        int hash = hash(name);
+        int slot = hash & mask;
+        String candidate;
+        while ((candidate = names[slot]) != null) {
+            if (hashes[slot] == hash && candidate.equalsIgnoreCase(name)) {
+                return ordinals[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    /**
+     * Consistent with equalsIgnoreCase: names that are equal ignoring case hash the same.
+     */
+    private static int hash(String name) {
+        int h = 0;
+        for (int i = 0; i < name.length(); i++) {
+            h = 31 * h + Character.toLowerCase(Character.toUpperCase(name.charAt(i)));
+        }
+        return h ^ (h >>> 16);
+    }
+}
@@ -1,26 +1,101 @@
 package org.example;
 
+import org.apache.flink.table.functions.FunctionContext;
 import org.apache.flink.table.functions.ScalarFunction;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.Arrays;
-import java.util.List;
-import java.util.stream.IntStream;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
 
 public class TshirtSizingIsSmaller extends ScalarFunction {
         public static final String NAME = "IS_SMALLER";
 
-        private static final List<Size> ORDERED_SIZES =
-                Arrays.asList(
-                        new Size("X-Small", "XS"),
-                        new Size("Small", "S"),
-                        new Size("Medium", "M"),
-                        new Size("Large", "L"),
-                        new Size("X-Large", "XL"),
-                        new Size("XX-Large", "XXL"));
+        /** Named ladders inline, e.g. {@code eu=36,38,40;kids=92,98,104}. These win over the resource's. */
+        public static final String LADDERS_PARAMETER = "is-smaller.ladders";
+        /** Classpath resource with one {@code name=sizes} ladder per line. */
+        public static final String LADDERS_RESOURCE_PARAMETER = "is-smaller.ladders-resource";
+        public static final String DEFAULT_LADDERS_RESOURCE = "size-ladders.properties";
+        /** The ladder used when no ladder is given. */
+        public static final String DEFAULT_LADDER = "tshirt";
+
+        private static final SizeLadder ORDERED_SIZES =
+                new SizeLadder(
+                        Arrays.asList(
+                                new String[] {"X-Small", "XS"},
+                                new String[] {"Small", "S"},
+                                new String[] {"Medium", "M"},
+                                new String[] {"Large", "L"},
+                                new String[] {"X-Large", "XL"},
+                                new String[] {"XX-Large", "XXL"}));
+
+        // compiled once per task in open(), or on first use when open() was not called
+        private transient Map<String, SizeLadder> ladders;
+        // the ladder argument is usually a constant, so the last one is remembered
+        private transient String lastLadderName;
+        private transient SizeLadder lastLadder;
+        private final UdfMetrics.Lazy metrics = UdfMetrics.lazy(NAME);
+
+        @Override
+        public void open(FunctionContext context) throws Exception {
+            ladders = loadLadders(
+                    context.getJobParameter(LADDERS_RESOURCE_PARAMETER, DEFAULT_LADDERS_RESOURCE),
+                    context.getJobParameter(LADDERS_PARAMETER, null));
+            lastLadderName = null;
+            lastLadder = null;
+            metrics.open(context);
+        }
 
         public boolean eval(String shirt1, String shirt2) {
-            int size1 = findSize(shirt1);
-            int size2 = findSize(shirt2);
+            UdfMetrics metrics = this.metrics.get();
+            long start = metrics.start();
+            if (shirt1 == null || shirt2 == null) {
+                metrics.nullInput(start);
+                return false;
+            }
+            boolean smaller = isSmaller(ORDERED_SIZES, shirt1, shirt2);
+            metrics.finish(start, -1, -1);
+            return smaller;
+        }
+
+        /**
+         * Compares sizes on a named ladder, e.g. {@code IS_SMALLER(size1, size2, 'eu')}.
+         * False if the ladder is unknown, like for unknown sizes.
+         */
+        public boolean eval(String shirt1, String shirt2, String ladder) {
+            UdfMetrics metrics = this.metrics.get();
+            long start = metrics.start();
+            if (shirt1 == null || shirt2 == null) {
+                metrics.nullInput(start);
+                return false;
+            }
+            SizeLadder sizes = findLadder(ladder);
+            boolean smaller = sizes != null && isSmaller(sizes, shirt1, shirt2);
+            metrics.finish(start, -1, -1);
+            return smaller;
+        }
+
+        /**
+         * Position of a size, smallest first, so callers can sort and compare without repeated lookups.
+         * Null if the size is unknown.
+         */
+        public Integer eval(String shirt) {
+            UdfMetrics metrics = this.metrics.get();
+            long start = metrics.start();
+            if (shirt == null) {
+                metrics.nullInput(start);
+                return null;
+            }
+            int size = ORDERED_SIZES.ordinalOf(shirt);
+            metrics.finish(start, -1, -1);
+            return size == -1 ? null : size;
+        }
+
+        private static boolean isSmaller(SizeLadder sizes, String shirt1, String shirt2) {
+            int size1 = sizes.ordinalOf(shirt1);
+            int size2 = sizes.ordinalOf(shirt2);
             // If either can't be found just say false rather than throw an error
             if (size1 == -1 || size2 == -1) {
                 return false;
@@ -28,25 +103,40 @@ public class TshirtSizingIsSmaller extends ScalarFunction {
             return size1 < size2;
         }
 
-        private int findSize(String shirt) {
-            return IntStream.range(0, ORDERED_SIZES.size())
-                    .filter(
-                            i -> {
-                                Size s = ORDERED_SIZES.get(i);
-                                return s.name.equalsIgnoreCase(shirt)
-                                        || s.abbreviation.equalsIgnoreCase(shirt);
-                            })
-                    .findFirst()
-                    .orElse(-1);
+        private SizeLadder findLadder(String name) {
+            if (name == null) {
+                return ORDERED_SIZES;
+            }
+            if (name == lastLadderName || name.equals(lastLadderName)) {
+                return lastLadder;
+            }
+            if (ladders == null) {
+                ladders = loadLadders(DEFAULT_LADDERS_RESOURCE, null);
+            }
+            lastLadder = ladders.get(SizeLadder.ladderKey(name));
+            lastLadderName = name;
+            return lastLadder;
         }
 
-        private static class Size {
-            private final String name;
-            private final String abbreviation;
-
-            public Size(String name, String abbreviation) {
-                this.name = name;
-                this.abbreviation = abbreviation;
+        static Map<String, SizeLadder> loadLadders(String resource, String inline) {
+            Map<String, SizeLadder> loaded = new HashMap<>();
+            loaded.put(DEFAULT_LADDER, ORDERED_SIZES);
+            try (InputStream in = TshirtSizingIsSmaller.class.getClassLoader().getResourceAsStream(resource)) {
+                if (in != null) {
+                    Properties properties = new Properties();
+                    properties.load(in);
+                    for (String name : properties.stringPropertyNames()) {
+                        loaded.put(SizeLadder.ladderKey(name), SizeLadder.parse(properties.getProperty(name)));
+                    }
+                } else if (!DEFAULT_LADDERS_RESOURCE.equals(resource)) {
+                    throw new IllegalArgumentException("Size ladder resource not found: " + resource);
+                }
+            } catch (IOException e) {
+                throw new IllegalArgumentException("Failed to read size ladder resource " + resource, e);
+            }
+            if (inline != null) {
+                loaded.putAll(SizeLadder.parseAll(inline));
             }
+            return loaded;
         }
 }
@@ -0,0 +1,67 @@
+package org.example;
+
+import org.apache.flink.table.annotation.DataTypeHint;
+import org.apache.flink.table.functions.FunctionContext;
+import org.apache.flink.table.functions.ScalarFunction;
+import org.apache.flink.types.Row;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import vehicle.objects.VehicleObjects;
+
+/**
+ * Serializes a batch of VehicleStay Rows, e.g. {@code ARRAY_AGG(stay)} over a window, into a single
+ * VehicleStayList message.
+ *
+ * The whole list is sized first and then written into one array of exactly that size, without
+ * serializing the stays one by one. Null elements are left out.
+ */
+public class VehicleStayListProtobufSerializer extends ScalarFunction {
+
+    public static final String NAME = "VEHICLE_STAY_LIST_PROTOBUF_SERIALIZE";
+
+    private static final Logger LOGGER = LogManager.getLogger();
+
+    private static final RowProtoPlan VEHICLE_STAY_LIST_PLAN =
+            RowProtoPlan.builder(VehicleObjects.VehicleStayList.getDescriptor())
+                    .message(0, VehicleObjects.VehicleStayList.VEHICLE_STAYS_FIELD_NUMBER,
+                            VehicleStayProtobufSerializer.VEHICLE_STAY_PLAN)
+                    .build();
+
+    // Sub-message sizes of the current list, computed by the size pass for the write pass
+    private transient RowProtoPlan.MessageSizes messageSizes;
+
+    private final UdfMetrics.Lazy metrics = UdfMetrics.lazy(NAME);
+
+    @Override
+    public void open(FunctionContext context) throws Exception {
+        metrics.open(context);
+    }
+
+    public byte[] eval(
+        @DataTypeHint("ARRAY<" + VehicleStayProtobufSerializer.VEHICLE_STAY_ROW_TYPE + ">")
+        Row[] vehicleStayRows
+    ) {
+        UdfMetrics metrics = this.metrics.get();
+        long start = metrics.start();
+        if (vehicleStayRows == null) {
+            metrics.nullInput(start);
+            LOGGER.warn("VehicleStay array is null, returning null");
+            return null;
+        }
+
+        try {
+            if (messageSizes == null) {
+                messageSizes = new RowProtoPlan.MessageSizes();
+            }
+            byte[] bytes = VEHICLE_STAY_LIST_PLAN.toByteArray(Row.of((Object) vehicleStayRows), messageSizes);
+            metrics.finish(start, -1, bytes.length);
+            return bytes;
+
+        } catch (Exception e) {
+            metrics.error(start);
+            LOGGER.error("Failed to serialize {} VehicleStay Rows to protobuf bytes: {}",
+                    vehicleStayRows.length, e.getMessage(), e);
+            throw new RuntimeException("Failed to serialize VehicleStayList to protobuf", e);
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package org.example;
+
+import org.apache.flink.table.annotation.DataTypeHint;
+import org.apache.flink.table.functions.FunctionContext;
+import org.apache.flink.table.functions.ScalarFunction;
+import org.apache.flink.types.Row;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.Arrays;
+
+/**
+ * Inverse of VehicleStayProtobufSerializer: parses VehicleStay protobuf bytes into the same ROW type.
+ *
+ * Absent sub-messages and an absent external flag read as null, other absent fields as their protobuf
+ * default, i.e. "" or false.
+ */
+public class VehicleStayProtobufDeserializer extends ScalarFunction {
+
+    public static final String NAME = "VEHICLE_STAY_PROTOBUF_DESERIALIZE";
+
+    private static final Logger LOGGER = LogManager.getLogger();
+
+    // the projection is usually a constant ARRAY, so its plan is compiled once
+    private transient String[] lastFields;
+    private transient RowProtoPlan lastProjection;
+
+    private final UdfMetrics.Lazy metrics = UdfMetrics.lazy(NAME);
+
+    @Override
+    public void open(FunctionContext context) throws Exception {
+        metrics.open(context);
+    }
+
+    public @DataTypeHint(VehicleStayProtobufSerializer.VEHICLE_STAY_ROW_TYPE) Row eval(byte[] bytes) {
+        return deserialize(bytes, null);
+    }
+
+    /**
+     * Only decodes the given fields, e.g. {@code ARRAY['tenant_alias', 'trackable_vehicle.object']},
+     * and skips over the bytes of all others, which read as null. Unknown fields fail like invalid bytes.
+     */
+    public @DataTypeHint(VehicleStayProtobufSerializer.VEHICLE_STAY_ROW_TYPE) Row eval(byte[] bytes, String[] fields) {
+        return deserialize(bytes, fields);
+    }
+
+    private RowProtoPlan getPlan(String[] fields) {
+        if (fields == null) {
+            return VehicleStayProtobufSerializer.VEHICLE_STAY_PLAN;
+        }
+        if (!Arrays.equals(fields, lastFields)) {
+            lastProjection = VehicleStayProtobufSerializer.VEHICLE_STAY_PLAN.project(Arrays.asList(fields));
+            lastFields = fields.clone();
+        }
+        return lastProjection;
+    }
+
+    private Row deserialize(byte[] bytes, String[] fields) {
+        UdfMetrics metrics = this.metrics.get();
+        long start = metrics.start();
+        if (bytes == null) {
+            metrics.nullInput(start);
+            return null;
+        }
+
+        try {
+            Row row = getPlan(fields).parse(bytes);
+            metrics.finish(start, bytes.length, -1);
+            return row;
+
+        } catch (Exception e) {
+            metrics.error(start);
+            LOGGER.error("Failed to deserialize VehicleStay from protobuf bytes: {}", e.getMessage(), e);
+            throw new RuntimeException("Failed to deserialize VehicleStay from protobuf", e);
+        }
+    }
+}
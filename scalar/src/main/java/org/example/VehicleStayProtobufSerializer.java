@@ -1,6 +1,7 @@
 package org.example;
 
 import org.apache.flink.table.annotation.DataTypeHint;
+import org.apache.flink.table.functions.FunctionContext;
 import org.apache.flink.table.functions.ScalarFunction;
 import org.apache.flink.types.Row;
 import org.apache.logging.log4j.LogManager;
@@ -10,6 +11,9 @@ import vehicle.objects.VehicleObjects;
 /**
  * Type-specific UDF for serializing VehicleStay Flink Row to protobuf bytes.
  * This UDF is designed for optimal performance with compile-time type safety.
+ *
+ * With a schema id or a Schema Registry URL set as job parameter, the bytes are framed in the
+ * Confluent wire format, ready for consumers using KafkaProtobufDeserializer.
  */
 public class VehicleStayProtobufSerializer extends ScalarFunction {
     
@@ -17,6 +21,117 @@ public class VehicleStayProtobufSerializer extends ScalarFunction {
     
     private static final Logger LOGGER = LogManager.getLogger();
 
+    private static final String PARAMETER_PREFIX = "vehicle-stay-protobuf";
+    /** Schema id to frame the bytes with, without asking the registry. */
+    public static final String SCHEMA_ID_PARAMETER = PARAMETER_PREFIX + ConfluentWireFormat.SCHEMA_ID;
+    /** Registry to look up the schema id in once per task, e.g. {@code http://localhost:8081}. */
+    public static final String SCHEMA_REGISTRY_URL_PARAMETER = PARAMETER_PREFIX + ConfluentWireFormat.SCHEMA_REGISTRY_URL;
+    /** Subject to look up, vehicle.objects.VehicleStay by default. */
+    public static final String SUBJECT_PARAMETER = PARAMETER_PREFIX + ConfluentWireFormat.SUBJECT;
+    /** Whether to register the schema if the subject does not have it yet, false by default. */
+    public static final String AUTO_REGISTER_PARAMETER = PARAMETER_PREFIX + ConfluentWireFormat.AUTO_REGISTER;
+    /** {@code user:password} for basic authentication against the registry. */
+    public static final String BASIC_AUTH_USER_INFO_PARAMETER = PARAMETER_PREFIX + ConfluentWireFormat.BASIC_AUTH_USER_INFO;
+
+    /** The Flink type of VehicleStay Rows, mirroring the VehicleStay protobuf message. */
+    public static final String VEHICLE_STAY_ROW_TYPE = "ROW<" +
+        "object ROW<alias STRING, namespace STRING, created STRING, updated STRING, correlation_id STRING>, " +
+        "trackable_vehicle ROW<" +
+            "object ROW<alias STRING, namespace STRING, created STRING, updated STRING, correlation_id STRING>, " +
+            "omlox_sync_ts STRING, " +
+            "tenant_alias STRING, " +
+            "vehicle ROW<vehicle_identification_number STRING, vehicle_license_plate STRING, customer_name STRING, vehicle_type STRING, lane STRING, vehicle_model STRING, last_transited_entered STRING, alternative_vehicle_identifier STRING>" +
+        ">, " +
+        "tenant_alias STRING, " +
+        "entry_identified_date_time STRING, " +
+        "entry_identified_lane STRING, " +
+        "entry_lane STRING, " +
+        "entry_date_time STRING, " +
+        "exit_lane STRING, " +
+        "exit_date_time STRING, " +
+        "exit_identified_date_time STRING, " +
+        "exit_identified_lane STRING, " +
+        "customer_is_waiting BOOLEAN, " +
+        "vehicle_visit_reason STRING, " +
+        "external BOOLEAN, " +
+        "exit_external_drive_date_time STRING, " +
+        "exit_external_drive_lane STRING, " +
+        "entry_external_drive_date_time STRING, " +
+        "entry_external_drive_lane STRING" +
+    ">";
+
+    private static final RowProtoPlan OBJECT_PLAN = RowProtoPlan.builder(VehicleObjects.Object.getDescriptor())
+            .fields(0,
+                    VehicleObjects.Object.ALIAS_FIELD_NUMBER,
+                    VehicleObjects.Object.NAMESPACE_FIELD_NUMBER,
+                    VehicleObjects.Object.CREATED_FIELD_NUMBER,
+                    VehicleObjects.Object.UPDATED_FIELD_NUMBER,
+                    VehicleObjects.Object.CORRELATION_ID_FIELD_NUMBER)
+            .build();
+
+    private static final RowProtoPlan VEHICLE_PLAN = RowProtoPlan.builder(VehicleObjects.Trackable.Vehicle.getDescriptor())
+            .fields(0,
+                    VehicleObjects.Trackable.Vehicle.VEHICLE_IDENTIFICATION_NUMBER_FIELD_NUMBER,
+                    VehicleObjects.Trackable.Vehicle.VEHICLE_LICENSE_PLATE_FIELD_NUMBER,
+                    VehicleObjects.Trackable.Vehicle.CUSTOMER_NAME_FIELD_NUMBER,
+                    VehicleObjects.Trackable.Vehicle.VEHICLE_TYPE_FIELD_NUMBER,
+                    VehicleObjects.Trackable.Vehicle.LANE_FIELD_NUMBER,
+                    VehicleObjects.Trackable.Vehicle.VEHICLE_MODEL_FIELD_NUMBER,
+                    VehicleObjects.Trackable.Vehicle.LAST_TRANSITED_ENTERED_FIELD_NUMBER,
+                    VehicleObjects.Trackable.Vehicle.ALTERNATIVE_VEHICLE_IDENTIFIER_FIELD_NUMBER)
+            .build();
+
+    private static final RowProtoPlan TRACKABLE_PLAN = RowProtoPlan.builder(VehicleObjects.Trackable.getDescriptor())
+            .message(0, VehicleObjects.Trackable.OBJECT_FIELD_NUMBER, OBJECT_PLAN)
+            .fields(1,
+                    VehicleObjects.Trackable.OMLOX_SYNC_TS_FIELD_NUMBER,
+                    VehicleObjects.Trackable.TENANT_ALIAS_FIELD_NUMBER)
+            .message(3, VehicleObjects.Trackable.VEHICLE_FIELD_NUMBER, VEHICLE_PLAN)
+            .build();
+
+    /**
+     * Column layout of VehicleStay Rows, shared with VehicleStayProtobufDeserializer.
+     * Field numbers are taken from the generated code, so the plan follows the .proto file.
+     */
+    static final RowProtoPlan VEHICLE_STAY_PLAN = RowProtoPlan.builder(VehicleObjects.VehicleStay.getDescriptor())
+            .message(0, VehicleObjects.VehicleStay.OBJECT_FIELD_NUMBER, OBJECT_PLAN)
+            .message(1, VehicleObjects.VehicleStay.TRACKABLE_VEHICLE_FIELD_NUMBER, TRACKABLE_PLAN)
+            .fields(2,
+                    VehicleObjects.VehicleStay.TENANT_ALIAS_FIELD_NUMBER,
+                    VehicleObjects.VehicleStay.ENTRY_IDENTIFIED_DATE_TIME_FIELD_NUMBER,
+                    VehicleObjects.VehicleStay.ENTRY_IDENTIFIED_LANE_FIELD_NUMBER,
+                    VehicleObjects.VehicleStay.ENTRY_LANE_FIELD_NUMBER,
+                    VehicleObjects.VehicleStay.ENTRY_DATE_TIME_FIELD_NUMBER,
+                    VehicleObjects.VehicleStay.EXIT_LANE_FIELD_NUMBER,
+                    VehicleObjects.VehicleStay.EXIT_DATE_TIME_FIELD_NUMBER,
+                    VehicleObjects.VehicleStay.EXIT_IDENTIFIED_DATE_TIME_FIELD_NUMBER,
+                    VehicleObjects.VehicleStay.EXIT_IDENTIFIED_LANE_FIELD_NUMBER)
+            .fields(11,
+                    VehicleObjects.VehicleStay.CUSTOMER_IS_WAITING_FIELD_NUMBER,
+                    VehicleObjects.VehicleStay.VEHICLE_VISIT_REASON_FIELD_NUMBER,
+                    // google.protobuf.BoolValue, given as a bare BOOLEAN
+                    VehicleObjects.VehicleStay.EXTERNAL_FIELD_NUMBER)
+            .fields(14,
+                    VehicleObjects.VehicleStay.EXIT_EXTERNAL_DRIVE_DATE_TIME_FIELD_NUMBER,
+                    VehicleObjects.VehicleStay.EXIT_EXTERNAL_DRIVE_LANE_FIELD_NUMBER,
+                    VehicleObjects.VehicleStay.ENTRY_EXTERNAL_DRIVE_DATE_TIME_FIELD_NUMBER,
+                    VehicleObjects.VehicleStay.ENTRY_EXTERNAL_DRIVE_LANE_FIELD_NUMBER)
+            .build();
+
+    // Sub-message sizes of the current row, computed by the size pass for the write pass
+    private transient RowProtoPlan.MessageSizes messageSizes;
+
+    // Confluent wire-format header, resolved once per task in open(); bare protobuf bytes if null
+    private transient byte[] header;
+
+    private final UdfMetrics.Lazy metrics = UdfMetrics.lazy(NAME);
+
+    @Override
+    public void open(FunctionContext context) throws Exception {
+        header = ConfluentWireFormat.header(context, PARAMETER_PREFIX, VehicleObjects.VehicleStay.getDescriptor());
+        metrics.open(context);
+    }
+
     /**
      * Serializes a VehicleStay Row to protobuf bytes.
      * 
@@ -41,141 +156,31 @@ public class VehicleStayProtobufSerializer extends ScalarFunction {
      * - entry_external_drive_lane: STRING
      */
     public byte[] eval(
-        @DataTypeHint("ROW<" +
-            "object ROW<alias STRING, namespace STRING, created STRING, updated STRING, correlation_id STRING>, " +
-            "trackable_vehicle ROW<" +
-                "object ROW<alias STRING, namespace STRING, created STRING, updated STRING, correlation_id STRING>, " +
-                "omlox_sync_ts STRING, " +
-                "tenant_alias STRING, " +
-                "vehicle ROW<vehicle_identification_number STRING, vehicle_license_plate STRING, customer_name STRING, vehicle_type STRING, lane STRING, vehicle_model STRING, last_transited_entered STRING, alternative_vehicle_identifier STRING>" +
-            ">, " +
-            "tenant_alias STRING, " +
-            "entry_identified_date_time STRING, " +
-            "entry_identified_lane STRING, " +
-            "entry_lane STRING, " +
-            "entry_date_time STRING, " +
-            "exit_lane STRING, " +
-            "exit_date_time STRING, " +
-            "exit_identified_date_time STRING, " +
-            "exit_identified_lane STRING, " +
-            "customer_is_waiting BOOLEAN, " +
-            "vehicle_visit_reason STRING, " +
-            "external BOOLEAN, " +
-            "exit_external_drive_date_time STRING, " +
-            "exit_external_drive_lane STRING, " +
-            "entry_external_drive_date_time STRING, " +
-            "entry_external_drive_lane STRING" +
-        ">")
+        @DataTypeHint(VEHICLE_STAY_ROW_TYPE)
         Row vehicleStayRow
     ) {
+        UdfMetrics metrics = this.metrics.get();
+        long start = metrics.start();
         if (vehicleStayRow == null) {
+            metrics.nullInput(start);
             LOGGER.warn("VehicleStay row is null, returning null");
             return null;
         }
 
         try {
-            VehicleObjects.VehicleStay.Builder builder = VehicleObjects.VehicleStay.newBuilder();
-
-            // Extract object field (index 0)
-            Row objectRow = vehicleStayRow.getFieldAs(0);
-            if (objectRow != null) {
-                VehicleObjects.Object.Builder objectBuilder = VehicleObjects.Object.newBuilder();
-                setStringField(objectBuilder::setAlias, objectRow, 0);
-                setStringField(objectBuilder::setNamespace, objectRow, 1);
-                setStringField(objectBuilder::setCreated, objectRow, 2);
-                setStringField(objectBuilder::setUpdated, objectRow, 3);
-                setStringField(objectBuilder::setCorrelationId, objectRow, 4);
-                builder.setObject(objectBuilder.build());
-            }
-
-            // Extract trackable_vehicle field (index 1)
-            Row trackableVehicleRow = vehicleStayRow.getFieldAs(1);
-            if (trackableVehicleRow != null) {
-                VehicleObjects.Trackable.Builder trackableBuilder = VehicleObjects.Trackable.newBuilder();
-                
-                // Trackable object (index 0)
-                Row trackableObjectRow = trackableVehicleRow.getFieldAs(0);
-                if (trackableObjectRow != null) {
-                    VehicleObjects.Object.Builder trackableObjectBuilder = VehicleObjects.Object.newBuilder();
-                    setStringField(trackableObjectBuilder::setAlias, trackableObjectRow, 0);
-                    setStringField(trackableObjectBuilder::setNamespace, trackableObjectRow, 1);
-                    setStringField(trackableObjectBuilder::setCreated, trackableObjectRow, 2);
-                    setStringField(trackableObjectBuilder::setUpdated, trackableObjectRow, 3);
-                    setStringField(trackableObjectBuilder::setCorrelationId, trackableObjectRow, 4);
-                    trackableBuilder.setObject(trackableObjectBuilder.build());
-                }
-                
-                // omlox_sync_ts (index 1)
-                setStringField(trackableBuilder::setOmloxSyncTs, trackableVehicleRow, 1);
-                
-                // tenant_alias (index 2)
-                setStringField(trackableBuilder::setTenantAlias, trackableVehicleRow, 2);
-                
-                // vehicle (index 3)
-                Row vehicleRow = trackableVehicleRow.getFieldAs(3);
-                if (vehicleRow != null) {
-                    VehicleObjects.Trackable.Vehicle.Builder vehicleBuilder = VehicleObjects.Trackable.Vehicle.newBuilder();
-                    setStringField(vehicleBuilder::setVehicleIdentificationNumber, vehicleRow, 0);
-                    setStringField(vehicleBuilder::setVehicleLicensePlate, vehicleRow, 1);
-                    setStringField(vehicleBuilder::setCustomerName, vehicleRow, 2);
-                    setStringField(vehicleBuilder::setVehicleType, vehicleRow, 3);
-                    setStringField(vehicleBuilder::setLane, vehicleRow, 4);
-                    setStringField(vehicleBuilder::setVehicleModel, vehicleRow, 5);
-                    setStringField(vehicleBuilder::setLastTransitedEntered, vehicleRow, 6);
-                    setStringField(vehicleBuilder::setAlternativeVehicleIdentifier, vehicleRow, 7);
-                    trackableBuilder.setVehicle(vehicleBuilder.build());
-                }
-                
-                builder.setTrackableVehicle(trackableBuilder.build());
-            }
-
-            // Set all remaining string and boolean fields
-            setStringField(builder::setTenantAlias, vehicleStayRow, 2);
-            setStringField(builder::setEntryIdentifiedDateTime, vehicleStayRow, 3);
-            setStringField(builder::setEntryIdentifiedLane, vehicleStayRow, 4);
-            setStringField(builder::setEntryLane, vehicleStayRow, 5);
-            setStringField(builder::setEntryDateTime, vehicleStayRow, 6);
-            setStringField(builder::setExitLane, vehicleStayRow, 7);
-            setStringField(builder::setExitDateTime, vehicleStayRow, 8);
-            setStringField(builder::setExitIdentifiedDateTime, vehicleStayRow, 9);
-            setStringField(builder::setExitIdentifiedLane, vehicleStayRow, 10);
-            
-            // customer_is_waiting (boolean, index 11)
-            Boolean customerIsWaiting = vehicleStayRow.getFieldAs(11);
-            if (customerIsWaiting != null) {
-                builder.setCustomerIsWaiting(customerIsWaiting);
-            }
-            
-            setStringField(builder::setVehicleVisitReason, vehicleStayRow, 12);
-            
-            // external (boolean with wrapper, index 13)
-            Boolean external = vehicleStayRow.getFieldAs(13);
-            if (external != null) {
-                builder.setExternal(com.google.protobuf.BoolValue.of(external));
+            if (messageSizes == null) {
+                messageSizes = new RowProtoPlan.MessageSizes();
             }
-            
-            setStringField(builder::setExitExternalDriveDateTime, vehicleStayRow, 14);
-            setStringField(builder::setExitExternalDriveLane, vehicleStayRow, 15);
-            setStringField(builder::setEntryExternalDriveDateTime, vehicleStayRow, 16);
-            setStringField(builder::setEntryExternalDriveLane, vehicleStayRow, 17);
-
-            return builder.build().toByteArray();
+            byte[] bytes = header == null
+                    ? VEHICLE_STAY_PLAN.toByteArray(vehicleStayRow, messageSizes)
+                    : VEHICLE_STAY_PLAN.toByteArray(vehicleStayRow, messageSizes, header);
+            metrics.finish(start, -1, bytes.length);
+            return bytes;
 
         } catch (Exception e) {
+            metrics.error(start);
             LOGGER.error("Failed to serialize VehicleStay Row to protobuf bytes: {}", e.getMessage(), e);
             throw new RuntimeException("Failed to serialize VehicleStay to protobuf", e);
         }
     }
-
-    /**
-     * Helper method to safely set string fields from Row
-     */
-    private void setStringField(java.util.function.Consumer<String> setter, Row row, int index) {
-        if (row != null && index < row.getArity()) {
-            String value = row.getFieldAs(index);
-            if (value != null && !value.isEmpty()) {
-                setter.accept(value);
-            }
-        }
-    }
 }
\ No newline at end of file
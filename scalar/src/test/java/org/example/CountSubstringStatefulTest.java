@@ -86,6 +86,20 @@ public class CountSubstringStatefulTest {
         assertEquals(0L, accumulator.value);
     }
 
+    @Test
+    public void testCountSubstringNonOverlapping() {
+        assertEquals(2L, CountSubstringStateful.countSubstring("aaaa", "aa"));
+        assertEquals(1L, CountSubstringStateful.countSubstring("aaa", "aa"));
+        assertEquals(2L, CountSubstringStateful.countSubstring("abcabc", "abc"));
+    }
+
+    @Test
+    public void testCountSubstringWithRegexCharacters() {
+        assertEquals(2L, CountSubstringStateful.countSubstring("a.*b a.*b ab", ".*"));
+        assertEquals(0L, CountSubstringStateful.countSubstring("abc", "a.c"));
+        assertEquals(1L, CountSubstringStateful.countSubstring("x\\Qy\\E", "\\Qy\\E"));
+    }
+
     @Test
     public void testGetValue() {
         accumulator.value = 123L;
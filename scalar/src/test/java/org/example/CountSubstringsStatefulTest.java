@@ -0,0 +1,127 @@
+package org.example;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class CountSubstringsStatefulTest {
+
+    private static final String[] NEEDLES = {"hello", "world", "lo"};
+
+    private CountSubstringsStateful countSubstrings;
+    private CountSubstringsStateful.CountsAccumulator accumulator;
+
+    @BeforeEach
+    public void setUp() {
+        countSubstrings = new CountSubstringsStateful();
+        accumulator = countSubstrings.createAccumulator();
+    }
+
+    @Test
+    public void testCreateAccumulator() {
+        assertEquals(Collections.emptyMap(), countSubstrings.getValue(accumulator));
+    }
+
+    @Test
+    public void testAccumulate() {
+        countSubstrings.accumulate(accumulator, "hello world hello", NEEDLES);
+        assertEquals(counts(2, 1, 2), countSubstrings.getValue(accumulator));
+
+        countSubstrings.accumulate(accumulator, "another hello", NEEDLES.clone());
+        assertEquals(counts(3, 1, 3), countSubstrings.getValue(accumulator));
+    }
+
+    @Test
+    public void testAccumulateWithNulls() {
+        countSubstrings.accumulate(accumulator, null, NEEDLES);
+        countSubstrings.accumulate(accumulator, "hello", null);
+        assertEquals(Collections.emptyMap(), countSubstrings.getValue(accumulator));
+    }
+
+    @Test
+    public void testDuplicateNullAndEmptyNeedles() {
+        countSubstrings.accumulate(accumulator, "aaaa", new String[] {"aa", null, "", "aa"});
+
+        Map<String, Long> expected = new LinkedHashMap<>();
+        expected.put("aa", 2L);
+        expected.put("", 0L);
+        assertEquals(expected, countSubstrings.getValue(accumulator));
+    }
+
+    @Test
+    public void testRetract() {
+        countSubstrings.accumulate(accumulator, "hello hello hello", NEEDLES);
+        countSubstrings.retract(accumulator, "hello", NEEDLES);
+        assertEquals(counts(2, 0, 2), countSubstrings.getValue(accumulator));
+    }
+
+    @Test
+    public void testMerge() {
+        CountSubstringsStateful.CountsAccumulator other = countSubstrings.createAccumulator();
+        countSubstrings.accumulate(other, "world world", NEEDLES);
+
+        countSubstrings.accumulate(accumulator, "hello", NEEDLES);
+        countSubstrings.merge(accumulator, Arrays.asList(other, countSubstrings.createAccumulator()));
+        assertEquals(counts(1, 2, 1), countSubstrings.getValue(accumulator));
+    }
+
+    @Test
+    public void testMergeIntoEmptyAccumulator() {
+        CountSubstringsStateful.CountsAccumulator other = new CountSubstringsStateful.CountsAccumulator(
+                NEEDLES.clone(), new long[] {1, 2, 3});
+        countSubstrings.merge(accumulator, Collections.singletonList(other));
+        assertEquals(counts(1, 2, 3), countSubstrings.getValue(accumulator));
+
+        // merging must not alias the other accumulator's counts
+        countSubstrings.accumulate(accumulator, "hello", NEEDLES);
+        assertEquals(1L, other.counts[0]);
+    }
+
+    @Test
+    public void testDifferentNeedleSets() {
+        countSubstrings.accumulate(accumulator, "hello world", new String[] {"hello"});
+        countSubstrings.accumulate(accumulator, "hello world", new String[] {"world", "hello"});
+
+        Map<String, Long> expected = new LinkedHashMap<>();
+        expected.put("hello", 2L);
+        expected.put("world", 1L);
+        assertEquals(expected, countSubstrings.getValue(accumulator));
+    }
+
+    @Test
+    public void testMatchesCountSubstring() {
+        // single-needle counts must agree with COUNT_SUBSTRING on overlapping, nested and non-ASCII needles
+        String[] needles = {"a", "aa", "aba", "ba", "bab", "\u00e9\u00e9", "a\u00e9", "abab"};
+        Random random = new Random(7);
+        char[] alphabet = {'a', 'b', '\u00e9', 'c'};
+        for (int run = 0; run < 500; run++) {
+            StringBuilder text = new StringBuilder();
+            int length = random.nextInt(40);
+            for (int i = 0; i < length; i++) {
+                text.append(alphabet[random.nextInt(alphabet.length)]);
+            }
+            CountSubstringsStateful.CountsAccumulator acc = countSubstrings.createAccumulator();
+            countSubstrings.accumulate(acc, text.toString(), needles);
+            Map<String, Long> result = countSubstrings.getValue(acc);
+            for (String needle : needles) {
+                assertEquals(CountSubstringStateful.countSubstring(text.toString(), needle), (long) result.get(needle),
+                        "count of " + needle + " in " + text);
+            }
+        }
+    }
+
+    private static Map<String, Long> counts(long hello, long world, long lo) {
+        Map<String, Long> counts = new LinkedHashMap<>();
+        counts.put("hello", hello);
+        counts.put("world", world);
+        counts.put("lo", lo);
+        return counts;
+    }
+}
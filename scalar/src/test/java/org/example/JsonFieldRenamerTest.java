@@ -7,6 +7,9 @@ import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
 
 public class JsonFieldRenamerTest {
 
@@ -47,7 +50,7 @@ public class JsonFieldRenamerTest {
 
     @Test
     public void testNullJson() {
-        assertNull(renamer.eval(null, "old", "new"));
+        assertNull(renamer.eval((String) null, "old", "new"));
     }
 
     @Test
@@ -81,6 +84,149 @@ public class JsonFieldRenamerTest {
         assertEquals(jsonArray, renamer.eval(jsonArray, "name", "firstName"));
     }
 
+    @Test
+    public void testMissReturnsInputUntouched() {
+        String sourceJson = "{ \"name\" : \"John\",  \"age\" : 30 }";
+        assertSame(sourceJson, renamer.eval(sourceJson, "address", "homeAddress"));
+    }
+
+    @Test
+    public void testHitCopiesEverythingButTheKeyVerbatim() {
+        String sourceJson = "{ \"name\" : \"John\",\n  \"score\" : 1.10, \"tags\": [ \"a\" ] }";
+        String expectedJson = "{ \"firstName\" : \"John\",\n  \"score\" : 1.10, \"tags\": [ \"a\" ] }";
+        assertEquals(expectedJson, renamer.eval(sourceJson, "name", "firstName"));
+    }
+
+    @Test
+    public void testNestedKeyIsNotRenamed() {
+        String sourceJson = "{\"data\":{\"name\":\"John\"}}";
+        assertEquals(sourceJson, renamer.eval(sourceJson, "name", "firstName"));
+    }
+
+    @Test
+    public void testEscapedKeyIsRenamed() {
+        String sourceJson = "{\"n\\u0061me\":\"John\",\"note\":\"a \\\"quoted\\\" word\"}";
+        String expectedJson = "{\"firstName\":\"John\",\"note\":\"a \\\"quoted\\\" word\"}";
+        assertEquals(expectedJson, renamer.eval(sourceJson, "name", "firstName"));
+    }
+
+    @Test
+    public void testRenameOntoExistingField() {
+        String sourceJson = "{\"name\":\"John\",\"firstName\":\"Jim\",\"age\":30}";
+        String expectedJson = "{\"firstName\":\"John\",\"age\":30}";
+        assertJsonEquals(expectedJson, renamer.eval(sourceJson, "name", "firstName"));
+    }
+
+    @Test
+    public void testNewNameNeedsEscaping() {
+        String sourceJson = "{\"name\":\"John\"}";
+        String result = renamer.eval(sourceJson, "name", "first \"name\"");
+        assertJsonEquals("{\"first \\\"name\\\"\":\"John\"}", result);
+    }
+
+    @Test
+    public void testTruncatedJsonWithKey() {
+        String invalidJson = "{\"name\":\"John\",\"age\":";
+        assertEquals(invalidJson, renamer.eval(invalidJson, "name", "firstName"));
+    }
+
+    @Test
+    public void testRenameMultipleFields() {
+        Map<String, String> renames = new HashMap<>();
+        renames.put("name", "firstName");
+        renames.put("age", "years");
+        renames.put("address", "homeAddress");
+        String sourceJson = "{\"name\":\"John\",\"age\":30,\"data\":{\"age\":1}}";
+        String expectedJson = "{\"firstName\":\"John\",\"years\":30,\"data\":{\"age\":1}}";
+        assertEquals(expectedJson, renamer.eval(sourceJson, renames));
+    }
+
+    @Test
+    public void testRenameMultipleFieldsAtOnce() {
+        // Renames are applied simultaneously, so two fields can swap names
+        Map<String, String> renames = new HashMap<>();
+        renames.put("a", "b");
+        renames.put("b", "a");
+        assertEquals("{\"b\":1,\"a\":2}", renamer.eval("{\"a\":1,\"b\":2}", renames));
+    }
+
+    @Test
+    public void testRenameMultipleFieldsOntoExistingField() {
+        Map<String, String> renames = new HashMap<>();
+        renames.put("a", "c");
+        renames.put("b", "d");
+        assertJsonEquals("{\"c\":1,\"d\":2}", renamer.eval("{\"a\":1,\"b\":2,\"c\":3}", renames));
+    }
+
+    @Test
+    public void testRenameMultipleFieldsMiss() {
+        Map<String, String> renames = new HashMap<>();
+        renames.put("x", "y");
+        renames.put("z", "w");
+        String sourceJson = "{\"a\":1}";
+        assertSame(sourceJson, renamer.eval(sourceJson, renames));
+    }
+
+    @Test
+    public void testRenameMultipleFieldsInvalidJson() {
+        Map<String, String> renames = new HashMap<>();
+        renames.put("a", "b");
+        String invalidJson = "{\"a\": not json }";
+        assertEquals(invalidJson, renamer.eval(invalidJson, renames));
+    }
+
+    @Test
+    public void testRenameMultipleFieldsNullOrEmptyMap() {
+        String sourceJson = "{\"a\":1}";
+        assertEquals(sourceJson, renamer.eval(sourceJson, (Map<String, String>) null));
+        assertEquals(sourceJson, renamer.eval(sourceJson, new HashMap<>()));
+        assertNull(renamer.eval((String) null, new HashMap<>()));
+    }
+
+    @Test
+    public void testRenameUtf8Bytes() {
+        String sourceJson = "{\"näme\":\"Jöhn\",\"tags\":[\"ü\"],\"escaped \\\"key\\\"\":1}";
+        Map<String, String> renames = new HashMap<>();
+        renames.put("näme", "名前");
+        renames.put("escaped \"key\"", "plain");
+
+        byte[] renamed = renamer.eval(sourceJson.getBytes(StandardCharsets.UTF_8), renames);
+
+        assertEquals(renamer.eval(sourceJson, renames), new String(renamed, StandardCharsets.UTF_8));
+        assertEquals("{\"名前\":\"Jöhn\",\"tags\":[\"ü\"],\"plain\":1}", new String(renamed, StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testRenameUtf8BytesOntoExistingField() {
+        byte[] sourceJson = "{\"a\":1,\"b\":2,\"c\":3}".getBytes(StandardCharsets.UTF_8);
+        Map<String, String> renames = new HashMap<>();
+        renames.put("a", "c");
+        renames.put("b", "d");
+        assertJsonEquals("{\"c\":1,\"d\":2}", new String(renamer.eval(sourceJson, renames), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testRenameUtf8BytesReturnsInputWhenUnchanged() {
+        byte[] miss = "{\"a\":1}".getBytes(StandardCharsets.UTF_8);
+        byte[] notAnObject = "[\"a\"]".getBytes(StandardCharsets.UTF_8);
+        byte[] invalidJson = "{\"a\": not json }".getBytes(StandardCharsets.UTF_8);
+
+        assertSame(miss, renamer.eval(miss, "x", "y"));
+        assertSame(notAnObject, renamer.eval(notAnObject, "a", "b"));
+        assertSame(invalidJson, renamer.eval(invalidJson, "a", "b"));
+        assertNull(renamer.eval((byte[]) null, "a", "b"));
+    }
+
+    @Test
+    public void testRenameUtf8BytesReturnsFreshArrays() {
+        byte[] first = renamer.eval("{\"a\":1}".getBytes(StandardCharsets.UTF_8), "a", "b");
+        byte[] second = renamer.eval("{\"a\":2}".getBytes(StandardCharsets.UTF_8), "a", "b");
+
+        // the output buffer is reused, the returned arrays are not
+        assertEquals("{\"b\":1}", new String(first, StandardCharsets.UTF_8));
+        assertEquals("{\"b\":2}", new String(second, StandardCharsets.UTF_8));
+    }
+
     @Test
     public void testSerializationDeserialization() throws Exception {
         JsonFieldRenamer originalFunction = new JsonFieldRenamer();
@@ -0,0 +1,76 @@
+package org.example;
+
+import org.apache.flink.types.Row;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class JsonFieldRenamerWithErrorsTest {
+
+    private final JsonFieldRenamerWithErrors renamer = new JsonFieldRenamerWithErrors();
+
+    @Test
+    public void testRenameField() {
+        assertEquals(Row.of("{\"firstName\":\"John\",\"age\":30}", null),
+                renamer.eval("{\"name\":\"John\",\"age\":30}", "name", "firstName"));
+    }
+
+    @Test
+    public void testRenameFields() {
+        assertEquals(Row.of("{\"b\":1,\"a\":2}", null),
+                renamer.eval("{\"a\":1,\"b\":2}", Map.of("a", "b", "b", "a")));
+    }
+
+    @Test
+    public void testInvalidJson() {
+        Row result = renamer.eval("{\"name\":\"John\",", "name", "firstName");
+
+        assertNull(result.getField(0));
+        assertTrue(((String) result.getField(1)).startsWith(JsonResults.INVALID_JSON + ": "), (String) result.getField(1));
+    }
+
+    @Test
+    public void testNotAnObject() {
+        assertEquals(Row.of(null, JsonResults.NOT_AN_OBJECT), renamer.eval("[\"name\"]", "name", "firstName"));
+    }
+
+    @Test
+    public void testInputWithoutTheFieldsIsStillChecked() {
+        // RENAME_JSON_FIELD returns it unchanged without parsing it
+        Row result = renamer.eval("not json", "name", "firstName");
+        assertNull(result.getField(0));
+        assertTrue(((String) result.getField(1)).startsWith(JsonResults.INVALID_JSON + ": "), (String) result.getField(1));
+
+        assertEquals(Row.of(null, JsonResults.NOT_AN_OBJECT), renamer.eval("[1]", "name", "firstName"));
+        assertEquals(Row.of(null, JsonResults.NOT_AN_OBJECT), renamer.eval("[1]", "name", "name"));
+        assertEquals(Row.of(null, JsonResults.NOT_AN_OBJECT), renamer.eval("[1]", Map.of()));
+        assertTrue(JsonResults.isFailure(renamer.eval("{\"other\":[1,", "name", "firstName")));
+        assertEquals(Row.of("{\"other\":{\"name\":1}}", null), renamer.eval("{\"other\":{\"name\":1}}", "age", "years"));
+    }
+
+    @Test
+    public void testNullInputs() {
+        assertEquals(Row.of(null, null), renamer.eval(null, "name", "firstName"));
+        assertEquals(Row.of("{\"name\":1}", null), renamer.eval("{\"name\":1}", null, "firstName"));
+        assertEquals(Row.of("{\"name\":1}", null), renamer.eval("{\"name\":1}", (Map<String, String>) null));
+    }
+
+    @Test
+    public void testSerializable() throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(renamer);
+        }
+        JsonFieldRenamerWithErrors copy;
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            copy = (JsonFieldRenamerWithErrors) in.readObject();
+        }
+        assertEquals(Row.of("{\"b\":1}", null), copy.eval("{\"a\":1}", "a", "b"));
+    }
+}
@@ -0,0 +1,111 @@
+package org.example;
+
+import com.google.protobuf.BoolValue;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import vehicle.events.VehicleEvents;
+import vehicle.objects.VehicleObjects;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JsonToProtobufConverterTest {
+
+    private JsonToProtobufConverter converter;
+
+    @BeforeEach
+    void setUp() {
+        converter = new JsonToProtobufConverter();
+    }
+
+    @Test
+    void testConvertNestedRepeatedAndEnumFields() {
+        // lowerCamelCase and .proto names, in any order
+        String json = "{\"trackables\":[{\"tenant_alias\":\"tenant\",\"vehicle\":{\"vehicleLicensePlate\":\"ABC-123\"}},{}],"
+            + "\"eventType\":\"REGION_EXIT\",\"fence_id\":\"fence-1\","
+            + "\"event\":{\"id\":\"event-1\",\"correlationId\":\"correlation-123\"}}";
+
+        byte[] result = converter.eval(json, "vehicle.events.FenceEventReceived");
+
+        VehicleEvents.FenceEventReceived expected = VehicleEvents.FenceEventReceived.newBuilder()
+            .setEvent(VehicleEvents.Event.newBuilder().setId("event-1").setCorrelationId("correlation-123"))
+            .setFenceId("fence-1")
+            .setEventType(VehicleEvents.FenceEventReceived.EventType.REGION_EXIT)
+            .addTrackables(VehicleObjects.Trackable.newBuilder()
+                .setTenantAlias("tenant")
+                .setVehicle(VehicleObjects.Trackable.Vehicle.newBuilder().setVehicleLicensePlate("ABC-123")))
+            .addTrackables(VehicleObjects.Trackable.getDefaultInstance())
+            .build();
+        assertArrayEquals(expected.toByteArray(), result);
+    }
+
+    @Test
+    void testConvertWrapperDefaultsAndNulls() {
+        String json = "{\"tenantAlias\":\"tenant\",\"entryLane\":\"\",\"customerIsWaiting\":false,"
+            + "\"external\":false,\"object\":null}";
+
+        byte[] result = converter.eval(json, "vehicle.objects.VehicleStay");
+
+        VehicleObjects.VehicleStay expected = VehicleObjects.VehicleStay.newBuilder()
+            .setTenantAlias("tenant")
+            .setExternal(BoolValue.of(false))
+            .build();
+        assertArrayEquals(expected.toByteArray(), result);
+    }
+
+    @Test
+    void testConvertNumbers() {
+        byte[] longValue = converter.eval("{\"longValue\":\"18446744073709551615\"}", "vehicle.objects.Properties");
+        byte[] intValue = converter.eval("{\"int_value\":0}", "vehicle.objects.Properties");
+        byte[] position = converter.eval("{\"coordinates\":[1.5,\"-2\",\"Infinity\"]}",
+            "vehicle.objects.LocationProvider.ExtendedData.Position");
+
+        assertArrayEquals(VehicleObjects.Properties.newBuilder().setLongValue(-1L).build().toByteArray(), longValue);
+        assertArrayEquals(VehicleObjects.Properties.newBuilder().setIntValue(0).build().toByteArray(), intValue);
+        assertArrayEquals(VehicleObjects.LocationProvider.ExtendedData.Position.newBuilder()
+            .addCoordinates(1.5)
+            .addCoordinates(-2.0)
+            .addCoordinates(Double.POSITIVE_INFINITY)
+            .build()
+            .toByteArray(), position);
+    }
+
+    @Test
+    void testRoundTrip() {
+        String json = "{\"field\":\"battery\",\"doubleValue\":12.5}";
+
+        byte[] bytes = converter.eval(json, "vehicle.objects.Properties");
+
+        assertEquals(json, new ProtobufToJsonConverter().eval(bytes, "vehicle.objects.Properties"));
+    }
+
+    @Test
+    void testConvertNull() {
+        assertNull(converter.eval(null, "vehicle.objects.Object"));
+        assertNull(converter.eval("{}", null));
+    }
+
+    @Test
+    void testInvalidJsonReturnsNull() {
+        String type = "vehicle.objects.Properties";
+        assertNull(converter.eval("{\"unknown\":1}", type));
+        assertNull(converter.eval("{\"field\":1}", type));
+        assertNull(converter.eval("{\"intValue\":-1}", type));
+        assertNull(converter.eval("{\"intValue\":1,\"stringValue\":\"a\"}", type));
+        assertNull(converter.eval("{\"field\":\"a\",\"field\":\"b\"}", type));
+        assertNull(converter.eval("[]", type));
+        assertNull(converter.eval("{\"field\":", type));
+
+        // the next record is converted as usual
+        assertArrayEquals(VehicleObjects.Properties.newBuilder().setField("a").build().toByteArray(),
+            converter.eval("{\"field\":\"a\"}", type));
+    }
+
+    @Test
+    void testUnknownMessageType() {
+        RuntimeException exception = assertThrows(RuntimeException.class, () -> {
+            converter.eval("{}", "vehicle.objects.Unknown");
+        });
+
+        assertTrue(exception.getMessage().contains("Failed to convert JSON to vehicle.objects.Unknown protobuf"));
+    }
+}
@@ -3,10 +3,15 @@ package org.example;
 import org.junit.jupiter.api.Test;
 import static org.junit.jupiter.api.Assertions.*;
 
+import org.apache.flink.metrics.Counter;
+import org.apache.flink.metrics.MetricGroup;
+import org.apache.flink.metrics.groups.UnregisteredMetricsGroup;
+
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -321,7 +326,7 @@ public class NestedJsonMapperTest {
         Map<String, String> mappings = new HashMap<>();
         mappings.put("field", "mappedField");
         
-        String result = mapper.eval(null, mappings);
+        String result = mapper.eval((String) null, mappings);
         assertNull(result, "Null input should return null");
     }
     
@@ -628,7 +633,7 @@ public class NestedJsonMapperTest {
         testMappings.put("field", "mappedField");
         
         // Test with null input first
-        String nullResult = originalFunction.eval(null, testMappings);
+        String nullResult = originalFunction.eval((String) null, testMappings);
         assertNull(nullResult);
         
         // Test with empty input
@@ -640,7 +645,7 @@ public class NestedJsonMapperTest {
         NestedJsonMapper deserializedFunction = deserializeObject(serializedData, NestedJsonMapper.class);
         
         // Verify edge cases still work correctly
-        assertNull(deserializedFunction.eval(null, testMappings));
+        assertNull(deserializedFunction.eval((String) null, testMappings));
         assertNull(deserializedFunction.eval("", testMappings));
         
         // Verify normal operation still works
@@ -648,6 +653,179 @@ public class NestedJsonMapperTest {
         assertJsonEquals("{\"mappedField\": \"value\"}", normalResult);
     }
     
+    /**
+     * The streaming mode must write exactly what the tree mode writes.
+     */
+    @Test
+    public void testStreamingModeMatchesTreeMode() {
+        NestedJsonMapper streamingMapper = new NestedJsonMapper(NestedJsonMapper.Mode.STREAMING);
+        Map<String, String> shipmentMappings = createShipmentMappings();
+        
+        String[] inputs = {
+            """
+            {
+              "/AMS/YBRV_PMO07": [
+                {
+                  "MANDT": "103",
+                  "SHIPMENT_NUMBER": "0004604557",
+                  "LIPS": [
+                    {
+                      "DELIVERY_NUMBER": "0850026493",
+                      "QUANTITY": 10.5,
+                      "FISCAL_NOTE": null,
+                      "EIKP": [ { "TRACKAGE_ID": "", "LFA1": [ { "CARRIER_CNPJ": 12345678901234 } ] } ]
+                    }
+                  ],
+                  "VTTK": { "CARRIER_ID": "C1", "SHIPMENT_DATE": "2024-07-24", "flags": [true, false] }
+                }
+              ],
+              "unmapped": "line\\nbreak \\"quoted\\" \\u00e9"
+            }
+            """,
+            "[{\"MANDT\": 1}, [[{\"LIPS\": []}]], {}]",
+            "{\"MANDT\": 1} {\"trailing\": true}",
+            "42"
+        };
+        
+        for (String input : inputs) {
+            String expected = mapper.eval(input, shipmentMappings);
+            assertNotNull(expected);
+            assertEquals(expected, streamingMapper.eval(input, shipmentMappings));
+        }
+    }
+    
+    @Test
+    public void testStreamingModeInvalidJson() {
+        NestedJsonMapper streamingMapper = new NestedJsonMapper(NestedJsonMapper.Mode.STREAMING);
+        Map<String, String> mappings = new HashMap<>();
+        mappings.put("field", "mappedField");
+        
+        assertNull(streamingMapper.eval("{ invalid json }", mappings));
+        assertNull(streamingMapper.eval("{\"field\": [1, 2", mappings));
+    }
+    
+    /**
+     * The mode can be switched through a job parameter. Colliding keys are where the modes differ:
+     * the tree keeps only the last one, the streaming mode writes both.
+     */
+    @Test
+    public void testModeFromJobParameter() throws Exception {
+        Map<String, String> mappings = new HashMap<>();
+        mappings.put("a", "b");
+        String input = "{\"a\":1,\"b\":2}";
+        
+        NestedJsonMapper function = new NestedJsonMapper();
+        function.open(new TestFunctionContext(Map.of()));
+        assertEquals("{\"b\":2}", function.eval(input, mappings));
+        
+        function.open(new TestFunctionContext(Map.of(NestedJsonMapper.MODE_PARAMETER, "streaming")));
+        assertEquals("{\"b\":1,\"b\":2}", function.eval(input, mappings));
+    }
+    
+    /**
+     * Compiled mappings are cached per function instance; a different map must not reuse them.
+     */
+    @Test
+    public void testMappingsChangingBetweenRows() {
+        String input = "{\"a\":{\"b\":1}}";
+        
+        Map<String, String> first = new HashMap<>();
+        first.put("a", "x");
+        Map<String, String> equalToFirst = new HashMap<>(first);
+        Map<String, String> second = new HashMap<>();
+        second.put("b", "y");
+        
+        for (NestedJsonMapper function : new NestedJsonMapper[] {
+                new NestedJsonMapper(), new NestedJsonMapper(NestedJsonMapper.Mode.STREAMING)}) {
+            assertEquals("{\"x\":{\"b\":1}}", function.eval(input, first));
+            assertEquals("{\"x\":{\"b\":1}}", function.eval(input, equalToFirst));
+            assertEquals("{\"a\":{\"y\":1}}", function.eval(input, second));
+            assertEquals("{\"x\":{\"b\":1}}", function.eval(input, first));
+        }
+    }
+    
+    @Test
+    public void testMappingWithNullValueIsIgnored() {
+        Map<String, String> mappings = new HashMap<>();
+        mappings.put("a", null);
+        mappings.put("b", "y");
+        
+        assertEquals("{\"a\":1,\"y\":2}", mapper.eval("{\"a\":1,\"b\":2}", mappings));
+    }
+    
+    /**
+     * Flink hands over a new MAP per row, so an equal map with null values must match the cached table.
+     */
+    @Test
+    public void testMappingWithNullValueIsCompiledOnce() {
+        Map<String, String> mappings = new HashMap<>();
+        mappings.put("a", null);
+        mappings.put("b", "y");
+        
+        CompiledFieldMappings compiled = mapper.getCompiledFieldMappings(mappings);
+        assertSame(compiled, mapper.getCompiledFieldMappings(new HashMap<>(mappings)));
+        
+        Map<String, String> changed = new HashMap<>(mappings);
+        changed.put("a", "x");
+        assertNotSame(compiled, mapper.getCompiledFieldMappings(changed));
+    }
+    
+    @Test
+    public void testUtf8BytesMatchStrings() {
+        String input = "{\"näme\":\"Jöhn\",\"items\":[{\"a\":\"ü\",\"b\":[1,2.5,null,true]}],\"a\":{\"a\":\"\\\"x\\\"\"}}";
+        Map<String, String> mappings = new HashMap<>();
+        mappings.put("näme", "名前");
+        mappings.put("a", "x");
+        
+        for (NestedJsonMapper function : new NestedJsonMapper[] {
+                new NestedJsonMapper(), new NestedJsonMapper(NestedJsonMapper.Mode.STREAMING)}) {
+            byte[] first = function.eval(input.getBytes(StandardCharsets.UTF_8), mappings);
+            byte[] second = function.eval("{\"a\":1}".getBytes(StandardCharsets.UTF_8), mappings);
+            
+            assertEquals(function.eval(input, mappings), new String(first, StandardCharsets.UTF_8));
+            assertEquals("{\"x\":1}", new String(second, StandardCharsets.UTF_8));
+        }
+    }
+    
+    @Test
+    public void testUtf8BytesNullEmptyAndInvalid() {
+        Map<String, String> mappings = Map.of("a", "b");
+        byte[] unmapped = "{\"a\":1}".getBytes(StandardCharsets.UTF_8);
+        
+        assertNull(mapper.eval((byte[]) null, mappings));
+        assertNull(mapper.eval(" \n".getBytes(StandardCharsets.UTF_8), mappings));
+        assertNull(mapper.eval("{\"a\":".getBytes(StandardCharsets.UTF_8), mappings));
+        assertSame(unmapped, mapper.eval(unmapped, new HashMap<>()));
+    }
+    
+    @Test
+    public void testReportsMetrics() throws Exception {
+        Map<String, Counter> counters = new HashMap<>();
+        NestedJsonMapper metered = new NestedJsonMapper();
+        metered.open(new TestFunctionContext(Map.of(), new UnregisteredMetricsGroup() {
+            @Override
+            public MetricGroup addGroup(String key, String value) {
+                assertEquals(UdfMetrics.GROUP + "." + NestedJsonMapper.NAME, key + "." + value);
+                return this;
+            }
+
+            @Override
+            public <C extends Counter> C counter(String name, C counter) {
+                counters.put(name, counter);
+                return counter;
+            }
+        }));
+        Map<String, String> mappings = Map.of("a", "b");
+
+        metered.eval("{\"a\":1}", mappings);
+        metered.eval((String) null, mappings);
+        metered.eval("{\"a\":", mappings);
+
+        assertEquals(3, counters.get(UdfMetrics.INVOCATIONS).getCount());
+        assertEquals(1, counters.get(UdfMetrics.NULL_INPUTS).getCount());
+        assertEquals(1, counters.get(UdfMetrics.ERRORS).getCount());
+    }
+    
     /**
      * Helper method to serialize any object to byte array.
      */
@@ -0,0 +1,60 @@
+package org.example;
+
+import org.apache.flink.types.Row;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class NestedJsonMapperWithErrorsTest {
+
+    private final NestedJsonMapperWithErrors mapper = new NestedJsonMapperWithErrors();
+
+    @Test
+    public void testMapping() {
+        assertEquals(Row.of("{\"user\":{\"fullName\":\"John\"}}", null),
+                mapper.eval("{\"user\":{\"name\":\"John\"}}", Map.of("name", "fullName")));
+    }
+
+    @Test
+    public void testInvalidJson() {
+        for (NestedJsonMapper.Mode mode : NestedJsonMapper.Mode.values()) {
+            Row result = new NestedJsonMapperWithErrors(mode).eval("{\"name\":", Map.of("name", "fullName"));
+
+            assertNull(result.getField(0), mode.name());
+            assertTrue(((String) result.getField(1)).startsWith(JsonResults.INVALID_JSON + ": "), (String) result.getField(1));
+        }
+    }
+
+    @Test
+    public void testInputWithoutMappingsIsStillChecked() {
+        // nested_json_mapper returns it unchanged without parsing it
+        for (Map<String, String> mappings : Arrays.asList(null, Map.<String, String>of())) {
+            Row result = mapper.eval("not json", mappings);
+
+            assertNull(result.getField(0));
+            assertTrue(((String) result.getField(1)).startsWith(JsonResults.INVALID_JSON + ": "), (String) result.getField(1));
+            assertTrue(JsonResults.isFailure(mapper.eval("{\"a\":[1,", mappings)));
+            assertEquals(Row.of("[1,{\"a\":2}]", null), mapper.eval("[1,{\"a\":2}]", mappings));
+        }
+    }
+
+    @Test
+    public void testModeParameter() throws Exception {
+        NestedJsonMapperWithErrors streaming = new NestedJsonMapperWithErrors();
+        streaming.open(new TestFunctionContext(Map.of(NestedJsonMapper.MODE_PARAMETER, "streaming")));
+
+        // the streaming mode keeps duplicate keys, the tree only the last one
+        assertEquals(Row.of("{\"b\":1,\"b\":2}", null), streaming.eval("{\"a\":1,\"b\":2}", Map.of("a", "b")));
+        assertEquals(Row.of("{\"b\":2}", null), mapper.eval("{\"a\":1,\"b\":2}", Map.of("a", "b")));
+    }
+
+    @Test
+    public void testNullAndEmptyInputs() {
+        assertEquals(Row.of(null, null), mapper.eval(null, Map.of("a", "b")));
+        assertEquals(Row.of(null, null), mapper.eval("  ", Map.of("a", "b")));
+        assertEquals(Row.of("{\"a\":1}", null), mapper.eval("{\"a\":1}", null));
+    }
+}
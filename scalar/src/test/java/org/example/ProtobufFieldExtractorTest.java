@@ -0,0 +1,157 @@
+package org.example;
+
+import com.google.protobuf.BoolValue;
+import org.apache.flink.types.Row;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import vehicle.events.VehicleEvents;
+import vehicle.objects.VehicleObjects;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProtobufFieldExtractorTest {
+
+    private static final String VEHICLE_STAY = "vehicle.objects.VehicleStay";
+    private static final String FENCE_EVENT_RECEIVED = "vehicle.events.FenceEventReceived";
+
+    private ProtobufFieldExtractor extractor;
+
+    @BeforeEach
+    void setUp() {
+        extractor = new ProtobufFieldExtractor();
+    }
+
+    @Test
+    void testExtractTopLevelField() {
+        byte[] bytes = VehicleObjects.VehicleStay.newBuilder()
+            .setTenantAlias("tenant")
+            .setEntryLane("lane-1")
+            .setCustomerIsWaiting(true)
+            .build()
+            .toByteArray();
+
+        assertEquals("tenant", extractor.eval(bytes, VEHICLE_STAY, "tenant_alias"));
+        assertEquals("lane-1", extractor.eval(bytes, VEHICLE_STAY, "entryLane"));
+        assertEquals("true", extractor.eval(bytes, VEHICLE_STAY, "customer_is_waiting"));
+    }
+
+    @Test
+    void testExtractNestedField() {
+        byte[] bytes = VehicleEvents.FenceEventReceived.newBuilder()
+            .setEvent(VehicleEvents.Event.newBuilder().setId("event-1").setCorrelationId("correlation-123"))
+            .setFenceId("fence-1")
+            .build()
+            .toByteArray();
+
+        assertEquals("correlation-123", extractor.eval(bytes, FENCE_EVENT_RECEIVED, "event.correlation_id"));
+        assertEquals("fence-1", extractor.eval(bytes, FENCE_EVENT_RECEIVED, "fence_id"));
+    }
+
+    @Test
+    void testExtractEnumByName() {
+        byte[] bytes = VehicleEvents.FenceEventReceived.newBuilder()
+            .setEventType(VehicleEvents.FenceEventReceived.EventType.REGION_EXIT)
+            .build()
+            .toByteArray();
+
+        assertEquals("REGION_EXIT", extractor.eval(bytes, FENCE_EVENT_RECEIVED, "event_type"));
+    }
+
+    @Test
+    void testExtractWrapperValue() {
+        byte[] bytes = VehicleObjects.VehicleStay.newBuilder()
+            .setExternal(BoolValue.of(false))
+            .build()
+            .toByteArray();
+
+        assertEquals("false", extractor.eval(bytes, VEHICLE_STAY, "external"));
+        assertNull(extractor.eval(new byte[0], VEHICLE_STAY, "external"));
+    }
+
+    /**
+     * Absent values read as VEHICLE_STAY_PROTOBUF_DESERIALIZE reads them.
+     */
+    @Test
+    void testAbsentFieldsReadLikeTheDeserializer() {
+        byte[] bytes = VehicleObjects.VehicleStay.newBuilder()
+            .setTenantAlias("tenant")
+            .setObject(VehicleObjects.Object.getDefaultInstance())
+            .build()
+            .toByteArray();
+        Row row = new VehicleStayProtobufDeserializer().eval(bytes);
+
+        assertEquals("", extractor.eval(bytes, VEHICLE_STAY, "entry_lane"));
+        assertEquals(row.getField(5), extractor.eval(bytes, VEHICLE_STAY, "entry_lane"));
+        assertEquals("false", extractor.eval(bytes, VEHICLE_STAY, "customer_is_waiting"));
+        assertEquals("", extractor.eval(bytes, VEHICLE_STAY, "object.alias"));
+        assertEquals(((Row) row.getField(0)).getField(0), extractor.eval(bytes, VEHICLE_STAY, "object.alias"));
+        // absent sub-message and wrapper
+        assertNull(row.getField(1));
+        assertNull(extractor.eval(bytes, VEHICLE_STAY, "trackable_vehicle.tenant_alias"));
+        assertNull(row.getField(13));
+        assertNull(extractor.eval(bytes, VEHICLE_STAY, "external"));
+    }
+
+    @Test
+    void testLaterOccurrenceWithoutTheFieldKeepsIt() throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        VehicleEvents.FenceEventReceived.newBuilder()
+            .setEvent(VehicleEvents.Event.newBuilder().setCorrelationId("correlation-123"))
+            .build()
+            .writeTo(bytes);
+        VehicleEvents.FenceEventReceived.newBuilder()
+            .setEvent(VehicleEvents.Event.newBuilder().setId("event-1"))
+            .build()
+            .writeTo(bytes);
+
+        assertEquals("correlation-123", extractor.eval(bytes.toByteArray(), FENCE_EVENT_RECEIVED, "event.correlation_id"));
+    }
+
+    @Test
+    void testLastOccurrenceWins() throws Exception {
+        // Concatenated messages merge, so a repeated singular field takes its last value
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        VehicleObjects.VehicleStay.newBuilder().setTenantAlias("first").build().writeTo(bytes);
+        VehicleObjects.VehicleStay.newBuilder().setTenantAlias("second").build().writeTo(bytes);
+
+        assertEquals("second", extractor.eval(bytes.toByteArray(), VEHICLE_STAY, "tenant_alias"));
+    }
+
+    @Test
+    void testExtractNull() {
+        assertNull(extractor.eval(null, VEHICLE_STAY, "tenant_alias"));
+        assertNull(extractor.eval(new byte[0], null, "tenant_alias"));
+        assertNull(extractor.eval(new byte[0], VEHICLE_STAY, null));
+    }
+
+    @Test
+    void testUnknownPath() {
+        RuntimeException exception = assertThrows(RuntimeException.class, () -> {
+            extractor.eval(new byte[0], VEHICLE_STAY, "object.unknown");
+        });
+
+        assertTrue(exception.getMessage().contains("Failed to extract object.unknown from vehicle.objects.VehicleStay"));
+    }
+
+    @Test
+    void testRepeatedAndMessageLeavesAreRejected() {
+        assertThrows(RuntimeException.class, () -> extractor.eval(new byte[0], VEHICLE_STAY, "object.relationships"));
+        assertThrows(RuntimeException.class, () -> extractor.eval(new byte[0], VEHICLE_STAY, "trackable_vehicle"));
+    }
+
+    @Test
+    void testTruncatedBytesReturnNull() {
+        byte[] bytes = VehicleObjects.VehicleStay.newBuilder()
+            .setTenantAlias("tenant")
+            .build()
+            .toByteArray();
+        byte[] truncated = Arrays.copyOf(bytes, bytes.length - 2);
+
+        assertNull(extractor.eval(truncated, VEHICLE_STAY, "tenant_alias"));
+        // the next record is read as usual
+        assertEquals("tenant", extractor.eval(bytes, VEHICLE_STAY, "tenant_alias"));
+    }
+}
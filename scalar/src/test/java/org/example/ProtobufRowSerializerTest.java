@@ -0,0 +1,187 @@
+package org.example;
+
+import org.apache.flink.types.Row;
+import org.apache.flink.types.RowKind;
+import org.apache.flink.types.RowUtils;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import vehicle.objects.VehicleObjects;
+
+import java.util.LinkedHashMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProtobufRowSerializerTest {
+
+    private ProtobufRowSerializer serializer;
+
+    @BeforeEach
+    void setUp() {
+        serializer = new ProtobufRowSerializer();
+    }
+
+    @Test
+    void testSerializeByPosition() {
+        // Position follows the declaration order: coordinates, type
+        Row positionRow = Row.of(new Double[] {1.5, -2.0}, "Point");
+
+        byte[] result = serializer.eval("vehicle.objects.LocationProvider.ExtendedData.Position", positionRow);
+
+        VehicleObjects.LocationProvider.ExtendedData.Position expected =
+            VehicleObjects.LocationProvider.ExtendedData.Position.newBuilder()
+                .addCoordinates(1.5)
+                .addCoordinates(-2.0)
+                .setType("Point")
+                .build();
+        assertArrayEquals(expected.toByteArray(), result);
+    }
+
+    @Test
+    void testSerializeByName() {
+        Row objectRow = Row.withNames();
+        objectRow.setField("alias", "test-alias");
+        objectRow.setField("correlationId", "correlation-123");
+        objectRow.setField("unknown", "ignored");
+
+        byte[] result = serializer.eval("vehicle.objects.Object", objectRow);
+
+        VehicleObjects.Object expected = VehicleObjects.Object.newBuilder()
+            .setAlias("test-alias")
+            .setCorrelationId("correlation-123")
+            .build();
+        assertArrayEquals(expected.toByteArray(), result);
+    }
+
+    /**
+     * Flink hands over Rows with the names of their type, which are EXPR$0, EXPR$1, ... for ROW(...).
+     */
+    @Test
+    void testSerializeByPositionWhenNamesDoNotMatch() {
+        LinkedHashMap<String, Integer> positions = new LinkedHashMap<>();
+        positions.put("EXPR$0", 0);
+        positions.put("EXPR$1", 1);
+        Row positionRow = RowUtils.createRowWithNamedPositions(
+            RowKind.INSERT, new Object[] {new Double[] {1.5, -2.0}, "Point"}, positions);
+
+        byte[] result = serializer.eval("vehicle.objects.LocationProvider.ExtendedData.Position", positionRow);
+
+        VehicleObjects.LocationProvider.ExtendedData.Position expected =
+            VehicleObjects.LocationProvider.ExtendedData.Position.newBuilder()
+                .addCoordinates(1.5)
+                .addCoordinates(-2.0)
+                .setType("Point")
+                .build();
+        assertArrayEquals(expected.toByteArray(), result);
+    }
+
+    @Test
+    void testSerializeNamedPositionsByName() {
+        LinkedHashMap<String, Integer> positions = new LinkedHashMap<>();
+        positions.put("type", 0);
+        positions.put("coordinates", 1);
+
+        for (String type : new String[] {"Point", "LineString"}) {
+            Row positionRow = RowUtils.createRowWithNamedPositions(
+                RowKind.INSERT, new Object[] {type, new Double[] {1.5}}, positions);
+
+            byte[] result = serializer.eval("vehicle.objects.LocationProvider.ExtendedData.Position", positionRow);
+
+            VehicleObjects.LocationProvider.ExtendedData.Position expected =
+                VehicleObjects.LocationProvider.ExtendedData.Position.newBuilder()
+                    .addCoordinates(1.5)
+                    .setType(type)
+                    .build();
+            assertArrayEquals(expected.toByteArray(), result);
+        }
+    }
+
+    @Test
+    void testRowByNameWithoutMatchingFields() {
+        Row objectRow = Row.withNames();
+        objectRow.setField("EXPR$0", "test-alias");
+        objectRow.setField("EXPR$1", "namespace");
+
+        RuntimeException exception = assertThrows(RuntimeException.class,
+            () -> serializer.eval("vehicle.objects.Object", objectRow));
+        assertTrue(exception.getCause().getMessage().contains("is a field of vehicle.objects.Object"));
+    }
+
+    @Test
+    void testSerializeNestedRepeatedAndEnumFields() {
+        Row trackableRow = Row.withNames();
+        trackableRow.setField("tenant_alias", "tenant");
+        Row emptyTrackableRow = Row.withNames();
+        Row fenceRow = Row.withNames();
+        fenceRow.setField("fence_name", "Workshop");
+        fenceRow.setField("capacity", 5);
+        fenceRow.setField("included_trackable_types", new String[] {"vehicle", "", "key"});
+        fenceRow.setField("trackables", new Row[] {trackableRow, emptyTrackableRow});
+        fenceRow.setField("fence_type", "FUNCTIONAL");
+        fenceRow.setField("external", false);
+
+        byte[] result = serializer.eval("vehicle.objects.Fence", fenceRow);
+
+        VehicleObjects.Fence expected = VehicleObjects.Fence.newBuilder()
+            .setFenceName("Workshop")
+            .setCapacity(5)
+            .addIncludedTrackableTypes("vehicle")
+            .addIncludedTrackableTypes("")
+            .addIncludedTrackableTypes("key")
+            .addTrackables(VehicleObjects.Trackable.newBuilder().setTenantAlias("tenant"))
+            .addTrackables(VehicleObjects.Trackable.getDefaultInstance())
+            .setFenceType(VehicleObjects.Fence.FenceType.FUNCTIONAL)
+            .build();
+        assertArrayEquals(expected.toByteArray(), result);
+    }
+
+    @Test
+    void testOneofMembersAreWrittenEvenIfDefault() {
+        // Properties: field, then the oneof value members
+        Row propertiesRow = Row.of("battery", null, null, null, null, false, null);
+
+        byte[] result = serializer.eval("vehicle.objects.Properties", propertiesRow);
+
+        VehicleObjects.Properties expected = VehicleObjects.Properties.newBuilder()
+            .setField("battery")
+            .setBooleanValue(false)
+            .build();
+        assertArrayEquals(expected.toByteArray(), result);
+    }
+
+    @Test
+    void testSerializeVehicleStayWrapperFromBareValue() throws Exception {
+        Row vehicleStayRow = Row.withNames();
+        vehicleStayRow.setField("tenant_alias", "tenant");
+        vehicleStayRow.setField("external", true);
+
+        byte[] result = serializer.eval("vehicle.objects.VehicleStay", vehicleStayRow);
+
+        VehicleObjects.VehicleStay deserialized = VehicleObjects.VehicleStay.parseFrom(result);
+        assertEquals("tenant", deserialized.getTenantAlias());
+        assertTrue(deserialized.hasExternal());
+        assertTrue(deserialized.getExternal().getValue());
+    }
+
+    @Test
+    void testSerializeNull() {
+        assertNull(serializer.eval("vehicle.objects.Object", null));
+        assertNull(serializer.eval(null, Row.of("alias")));
+    }
+
+    @Test
+    void testUnknownMessageType() {
+        RuntimeException exception = assertThrows(RuntimeException.class, () -> {
+            serializer.eval("vehicle.objects.Unknown", Row.of("alias"));
+        });
+
+        assertTrue(exception.getMessage().contains("Failed to serialize vehicle.objects.Unknown to protobuf"));
+    }
+
+    @Test
+    void testUnknownEnumName() {
+        Row fenceRow = Row.withNames();
+        fenceRow.setField("fence_type", "NOT_A_TYPE");
+
+        assertThrows(RuntimeException.class, () -> serializer.eval("vehicle.objects.Fence", fenceRow));
+    }
+}
@@ -0,0 +1,139 @@
+package org.example;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.protobuf.BoolValue;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import vehicle.events.VehicleEvents;
+import vehicle.objects.VehicleObjects;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProtobufToJsonConverterTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private ProtobufToJsonConverter converter;
+
+    @BeforeEach
+    void setUp() {
+        converter = new ProtobufToJsonConverter();
+    }
+
+    private void assertJsonEquals(String expected, String actual) throws Exception {
+        assertEquals(objectMapper.readTree(expected), objectMapper.readTree(actual));
+    }
+
+    @Test
+    void testConvertNestedRepeatedAndEnumFields() throws Exception {
+        byte[] bytes = VehicleEvents.FenceEventReceived.newBuilder()
+            .setEvent(VehicleEvents.Event.newBuilder().setId("event-1").setCorrelationId("correlation-123"))
+            .setFenceId("fence-1")
+            .setEventType(VehicleEvents.FenceEventReceived.EventType.REGION_ENTRY)
+            .addTrackables(VehicleObjects.Trackable.newBuilder()
+                .setTenantAlias("tenant")
+                .setVehicle(VehicleObjects.Trackable.Vehicle.newBuilder().setVehicleLicensePlate("ABC-123")))
+            .addTrackables(VehicleObjects.Trackable.getDefaultInstance())
+            .build()
+            .toByteArray();
+
+        String result = converter.eval(bytes, "vehicle.events.FenceEventReceived");
+
+        assertJsonEquals("{\"event\":{\"id\":\"event-1\",\"correlationId\":\"correlation-123\"},"
+            + "\"fenceId\":\"fence-1\",\"eventType\":\"REGION_ENTRY\","
+            + "\"trackables\":[{\"tenantAlias\":\"tenant\",\"vehicle\":{\"vehicleLicensePlate\":\"ABC-123\"}},{}]}", result);
+    }
+
+    @Test
+    void testDefaultsAreLeftOut() throws Exception {
+        byte[] bytes = VehicleObjects.VehicleStay.newBuilder()
+            .setTenantAlias("tenant")
+            .setCustomerIsWaiting(false)
+            .setExternal(BoolValue.of(false))
+            .setObject(VehicleObjects.Object.getDefaultInstance())
+            .build()
+            .toByteArray();
+
+        String result = converter.eval(bytes, "vehicle.objects.VehicleStay");
+
+        // an empty sub-message and a wrapper holding false are still present
+        assertJsonEquals("{\"object\":{},\"tenantAlias\":\"tenant\",\"external\":false}", result);
+    }
+
+    @Test
+    void testConvertNumbers() throws Exception {
+        byte[] longValue = VehicleObjects.Properties.newBuilder()
+            .setField("mileage")
+            .setLongValue(-1L)
+            .build()
+            .toByteArray();
+        byte[] intValue = VehicleObjects.Properties.newBuilder()
+            .setIntValue(0)
+            .build()
+            .toByteArray();
+        byte[] position = VehicleObjects.LocationProvider.ExtendedData.Position.newBuilder()
+            .addCoordinates(1.5)
+            .addCoordinates(Double.NaN)
+            .build()
+            .toByteArray();
+
+        // 64-bit integers are quoted, unsigned values stay unsigned, oneof members are written even if 0
+        assertJsonEquals("{\"field\":\"mileage\",\"longValue\":\"18446744073709551615\"}",
+            converter.eval(longValue, "vehicle.objects.Properties"));
+        assertJsonEquals("{\"intValue\":0}", converter.eval(intValue, "vehicle.objects.Properties"));
+        assertJsonEquals("{\"coordinates\":[1.5,\"NaN\"]}",
+            converter.eval(position, "vehicle.objects.LocationProvider.ExtendedData.Position"));
+    }
+
+    @Test
+    void testConcatenatedMessagesMerge() throws Exception {
+        byte[] first = VehicleEvents.FenceEventReceived.newBuilder()
+            .setEvent(VehicleEvents.Event.newBuilder().setId("event-1"))
+            .setFenceId("fence-1")
+            .addTrackables(VehicleObjects.Trackable.newBuilder().setTenantAlias("first"))
+            .build()
+            .toByteArray();
+        byte[] second = VehicleEvents.FenceEventReceived.newBuilder()
+            .setEvent(VehicleEvents.Event.newBuilder().setCorrelationId("correlation-123"))
+            .setFenceId("fence-2")
+            .addTrackables(VehicleObjects.Trackable.newBuilder().setTenantAlias("second"))
+            .build()
+            .toByteArray();
+        byte[] bytes = Arrays.copyOf(first, first.length + second.length);
+        System.arraycopy(second, 0, bytes, first.length, second.length);
+
+        String result = converter.eval(bytes, "vehicle.events.FenceEventReceived");
+
+        // the last value wins, sub-messages merge and repeated fields append, as when parsing
+        byte[] merged = VehicleEvents.FenceEventReceived.parseFrom(bytes).toByteArray();
+        assertJsonEquals(converter.eval(merged, "vehicle.events.FenceEventReceived"), result);
+        assertJsonEquals("{\"event\":{\"id\":\"event-1\",\"correlationId\":\"correlation-123\"},"
+            + "\"fenceId\":\"fence-2\","
+            + "\"trackables\":[{\"tenantAlias\":\"first\"},{\"tenantAlias\":\"second\"}]}", result);
+    }
+
+    @Test
+    void testConvertNull() {
+        assertNull(converter.eval(null, "vehicle.objects.Object"));
+        assertNull(converter.eval(new byte[0], null));
+    }
+
+    @Test
+    void testUnknownMessageType() {
+        RuntimeException exception = assertThrows(RuntimeException.class, () -> {
+            converter.eval(new byte[0], "vehicle.objects.Unknown");
+        });
+
+        assertTrue(exception.getMessage().contains("Failed to convert vehicle.objects.Unknown protobuf to JSON"));
+    }
+
+    @Test
+    void testMalformedBytes() {
+        byte[] bytes = VehicleObjects.Object.newBuilder().setAlias("alias").build().toByteArray();
+        byte[] truncated = Arrays.copyOf(bytes, bytes.length - 1);
+
+        assertThrows(RuntimeException.class, () -> converter.eval(truncated, "vehicle.objects.Object"));
+    }
+}
@@ -2,7 +2,14 @@ package org.example;
 
 import org.junit.jupiter.api.Test;
 
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class TshirtSizingIsSmallerTest {
@@ -33,4 +40,75 @@ public class TshirtSizingIsSmallerTest {
         assertFalse(tshirtSizingIsSmaller.eval("Small", "Invalid"));
         assertFalse(tshirtSizingIsSmaller.eval("Invalid", "Invalid"));
     }
+
+    @Test
+    void testIgnoresCase() {
+        assertTrue(tshirtSizingIsSmaller.eval("small", "MEDIUM"));
+        assertTrue(tshirtSizingIsSmaller.eval("xs", "x-large"));
+        assertFalse(tshirtSizingIsSmaller.eval("xxl", "Xl"));
+    }
+
+    @Test
+    void testNullSize() {
+        assertFalse(tshirtSizingIsSmaller.eval(null, "Medium"));
+        assertFalse(tshirtSizingIsSmaller.eval("Small", null));
+    }
+
+    @Test
+    void testOrdinal() {
+        assertEquals(Integer.valueOf(0), tshirtSizingIsSmaller.eval("X-Small"));
+        assertEquals(Integer.valueOf(1), tshirtSizingIsSmaller.eval("s"));
+        assertEquals(Integer.valueOf(2), tshirtSizingIsSmaller.eval("Medium"));
+        assertEquals(Integer.valueOf(5), tshirtSizingIsSmaller.eval("XXL"));
+        assertNull(tshirtSizingIsSmaller.eval("Invalid"));
+        assertNull(tshirtSizingIsSmaller.eval((String) null));
+    }
+
+    @Test
+    void testLaddersFromResource() {
+        assertTrue(tshirtSizingIsSmaller.eval("36", "48", "eu"));
+        assertFalse(tshirtSizingIsSmaller.eval("44", "40", "EU"));
+        assertTrue(tshirtSizingIsSmaller.eval("XXL", "3XL", "extended"));
+        assertTrue(tshirtSizingIsSmaller.eval("xxxl", "4xl", "extended"));
+        assertTrue(tshirtSizingIsSmaller.eval("98", "104", "kids"));
+        assertTrue(tshirtSizingIsSmaller.eval("Small", "Medium", "tshirt"));
+        assertTrue(tshirtSizingIsSmaller.eval("Small", "Medium", null));
+    }
+
+    @Test
+    void testUnknownLadderOrSize() {
+        assertFalse(tshirtSizingIsSmaller.eval("36", "48", "us"));
+        assertFalse(tshirtSizingIsSmaller.eval("XXL", "3XL", "tshirt"));
+        assertFalse(tshirtSizingIsSmaller.eval("S", "M", "eu"));
+    }
+
+    @Test
+    void testLaddersFromJobParameter() throws Exception {
+        Map<String, String> parameters = new HashMap<>();
+        parameters.put(TshirtSizingIsSmaller.LADDERS_PARAMETER, "shoes=40|6,41|7,42|8 ; eu=S,M,L");
+        TshirtSizingIsSmaller function = new TshirtSizingIsSmaller();
+        function.open(new TestFunctionContext(parameters));
+
+        assertTrue(function.eval("6", "41", "shoes"));
+        assertFalse(function.eval("42", "7", "Shoes"));
+        // inline ladders win over the resource's
+        assertTrue(function.eval("S", "L", "eu"));
+        assertFalse(function.eval("36", "48", "eu"));
+        // the resource's other ladders are still there
+        assertTrue(function.eval("92", "98", "kids"));
+    }
+
+    @Test
+    void testMissingLadderResource() {
+        TshirtSizingIsSmaller function = new TshirtSizingIsSmaller();
+        assertThrows(IllegalArgumentException.class, () -> function.open(new TestFunctionContext(
+                Collections.singletonMap(TshirtSizingIsSmaller.LADDERS_RESOURCE_PARAMETER, "missing.properties"))));
+    }
+
+    @Test
+    void testMalformedLadderParameter() {
+        TshirtSizingIsSmaller function = new TshirtSizingIsSmaller();
+        assertThrows(IllegalArgumentException.class, () -> function.open(new TestFunctionContext(
+                Collections.singletonMap(TshirtSizingIsSmaller.LADDERS_PARAMETER, "36,38,40"))));
+    }
 }
@@ -0,0 +1,87 @@
+package org.example;
+
+import org.apache.flink.types.Row;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import vehicle.objects.VehicleObjects;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class VehicleStayListProtobufSerializerTest {
+
+    private VehicleStayListProtobufSerializer serializer;
+
+    @BeforeEach
+    void setUp() {
+        serializer = new VehicleStayListProtobufSerializer();
+    }
+
+    private static Row vehicleStayRow(String tenantAlias, Boolean external) {
+        Row objectRow = Row.of("alias-" + tenantAlias, "namespace", "", "", "");
+        Row vehicleRow = Row.of("VIN123", "ABC-123", "", "", "Lane-1", "", "", "");
+        Row trackableObjectRow = Row.of("t-alias", "t-namespace", "", "", "");
+        Row trackableVehicleRow = Row.of(trackableObjectRow, "", tenantAlias, vehicleRow);
+        return Row.of(
+            objectRow, trackableVehicleRow, tenantAlias, "", "", "Lane-A", "", "", "", "", "",
+            true,               // customer_is_waiting
+            "Service",          // vehicle_visit_reason
+            external,           // external
+            "", "", "", ""
+        );
+    }
+
+    @Test
+    void testSerializeList() throws Exception {
+        Row first = vehicleStayRow("tenant-1", true);
+        Row second = vehicleStayRow("tenant-2", null);
+
+        byte[] result = serializer.eval(new Row[] {first, second});
+
+        VehicleStayProtobufSerializer single = new VehicleStayProtobufSerializer();
+        VehicleObjects.VehicleStayList expected = VehicleObjects.VehicleStayList.newBuilder()
+            .addVehicleStays(VehicleObjects.VehicleStay.parseFrom(single.eval(first)))
+            .addVehicleStays(VehicleObjects.VehicleStay.parseFrom(single.eval(second)))
+            .build();
+        assertArrayEquals(expected.toByteArray(), result);
+
+        VehicleObjects.VehicleStayList deserialized = VehicleObjects.VehicleStayList.parseFrom(result);
+        assertEquals(2, deserialized.getVehicleStaysCount());
+        assertEquals("tenant-1", deserialized.getVehicleStays(0).getTenantAlias());
+        assertTrue(deserialized.getVehicleStays(0).getExternal().getValue());
+        assertEquals("tenant-2", deserialized.getVehicleStays(1).getTrackableVehicle().getTenantAlias());
+        assertFalse(deserialized.getVehicleStays(1).hasExternal());
+    }
+
+    @Test
+    void testNullElementsAreSkipped() throws Exception {
+        byte[] result = serializer.eval(new Row[] {null, vehicleStayRow("tenant", false), null});
+
+        VehicleObjects.VehicleStayList deserialized = VehicleObjects.VehicleStayList.parseFrom(result);
+        assertEquals(1, deserialized.getVehicleStaysCount());
+        assertEquals("tenant", deserialized.getVehicleStays(0).getTenantAlias());
+    }
+
+    @Test
+    void testSerializeEmptyList() throws Exception {
+        byte[] result = serializer.eval(new Row[0]);
+
+        assertEquals(0, result.length);
+        assertEquals(0, VehicleObjects.VehicleStayList.parseFrom(result).getVehicleStaysCount());
+    }
+
+    @Test
+    void testSerializeNullList() {
+        assertNull(serializer.eval(null));
+    }
+
+    @Test
+    void testSerializeErrorHandling() {
+        Row incompleteRow = Row.of("tenant");
+
+        RuntimeException exception = assertThrows(RuntimeException.class, () -> {
+            serializer.eval(new Row[] {incompleteRow});
+        });
+
+        assertTrue(exception.getMessage().contains("Failed to serialize VehicleStayList to protobuf"));
+    }
+}
@@ -0,0 +1,129 @@
+package org.example;
+
+import org.apache.flink.types.Row;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import vehicle.objects.VehicleObjects;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class VehicleStayProtobufDeserializerTest {
+
+    private VehicleStayProtobufDeserializer deserializer;
+
+    @BeforeEach
+    void setUp() {
+        deserializer = new VehicleStayProtobufDeserializer();
+    }
+
+    private static Row completeVehicleStayRow() {
+        Row objectRow = Row.of("test-alias", "test.namespace", "2024-01-01T10:00:00Z", "2024-01-01T10:30:00Z", "correlation-123");
+        Row vehicleRow = Row.of("VIN123456789", "ABC-123", "John Doe", "SUV", "Lane-1", "Model-X", "2024-01-01T09:00:00Z", "ALT-ID-456");
+        Row trackableObjectRow = Row.of("trackable-alias", "trackable.namespace", "2024-01-01T09:00:00Z", "2024-01-01T09:30:00Z", "trackable-correlation");
+        Row trackableVehicleRow = Row.of(trackableObjectRow, "2024-01-01T10:00:00Z", "tenant-123", vehicleRow);
+        return Row.of(
+            objectRow, trackableVehicleRow, "tenant-123",
+            "2024-01-01T08:30:00Z", "Entry-Lane-A", "Lane-A", "2024-01-01T08:45:00Z",
+            "Lane-B", "2024-01-01T12:30:00Z", "2024-01-01T12:35:00Z", "Exit-Lane-B",
+            true, "Maintenance", false,
+            "2024-01-01T12:40:00Z", "External-Lane-C", "2024-01-01T08:25:00Z", "External-Lane-A"
+        );
+    }
+
+    @Test
+    void testRoundTrip() {
+        Row vehicleStayRow = completeVehicleStayRow();
+        byte[] bytes = new VehicleStayProtobufSerializer().eval(vehicleStayRow);
+
+        assertEquals(vehicleStayRow, deserializer.eval(bytes));
+    }
+
+    @Test
+    void testDeserializeGeneratedCodeOutput() {
+        byte[] bytes = VehicleObjects.VehicleStay.newBuilder()
+            .setObject(VehicleObjects.Object.newBuilder().setAlias("alias"))
+            .setTenantAlias("tenant")
+            .setExternal(com.google.protobuf.BoolValue.of(true))
+            .build()
+            .toByteArray();
+
+        Row result = deserializer.eval(bytes);
+
+        assertEquals(Row.of("alias", "", "", "", ""), result.getField(0));
+        // absent sub-messages read as null, absent strings and flags as their protobuf default
+        assertNull(result.getField(1));
+        assertEquals("tenant", result.getField(2));
+        assertEquals("", result.getField(3));
+        assertEquals(false, result.getField(11));
+        assertEquals(true, result.getField(13));
+    }
+
+    @Test
+    void testExternalAbsentOrFalse() {
+        Row withoutExternal = deserializer.eval(VehicleObjects.VehicleStay.newBuilder().build().toByteArray());
+        assertNull(withoutExternal.getField(13));
+
+        Row withFalseExternal = deserializer.eval(VehicleObjects.VehicleStay.newBuilder()
+            .setExternal(com.google.protobuf.BoolValue.of(false))
+            .build()
+            .toByteArray());
+        assertEquals(false, withFalseExternal.getField(13));
+    }
+
+    @Test
+    void testProjection() {
+        byte[] bytes = new VehicleStayProtobufSerializer().eval(completeVehicleStayRow());
+
+        Row result = deserializer.eval(bytes, new String[] {"tenant_alias", "trackable_vehicle.vehicle.lane"});
+
+        assertEquals("tenant-123", result.getField(2));
+        Row trackableVehicleRow = (Row) result.getField(1);
+        assertNull(trackableVehicleRow.getField(0));
+        assertNull(trackableVehicleRow.getField(2));
+        assertEquals(Row.of(null, null, null, null, "Lane-1", null, null, null), trackableVehicleRow.getField(3));
+        // everything else is skipped
+        assertNull(result.getField(0));
+        for (int i = 3; i < result.getArity(); i++) {
+            assertNull(result.getField(i), "field " + i);
+        }
+    }
+
+    @Test
+    void testProjectionOfWholeSubMessage() {
+        Row vehicleStayRow = completeVehicleStayRow();
+        byte[] bytes = new VehicleStayProtobufSerializer().eval(vehicleStayRow);
+
+        Row result = deserializer.eval(bytes, new String[] {"object"});
+
+        assertEquals(vehicleStayRow.getField(0), result.getField(0));
+        assertNull(result.getField(1));
+        assertNull(result.getField(2));
+    }
+
+    @Test
+    void testUnknownProjectedField() {
+        RuntimeException unknown = assertThrows(RuntimeException.class,
+            () -> deserializer.eval(new byte[0], new String[] {"unknown"}));
+        RuntimeException notAMessage = assertThrows(RuntimeException.class,
+            () -> deserializer.eval(new byte[0], new String[] {"tenant_alias.x"}));
+
+        assertTrue(unknown.getMessage().contains("Failed to deserialize VehicleStay from protobuf"));
+        assertInstanceOf(IllegalArgumentException.class, unknown.getCause());
+        assertInstanceOf(IllegalArgumentException.class, notAMessage.getCause());
+    }
+
+    @Test
+    void testDeserializeNull() {
+        assertNull(deserializer.eval(null));
+        assertNull(deserializer.eval(null, new String[] {"tenant_alias"}));
+    }
+
+    @Test
+    void testDeserializeTruncatedBytes() {
+        byte[] bytes = new VehicleStayProtobufSerializer().eval(completeVehicleStayRow());
+        byte[] truncated = java.util.Arrays.copyOf(bytes, bytes.length / 2);
+
+        RuntimeException exception = assertThrows(RuntimeException.class, () -> deserializer.eval(truncated));
+        assertTrue(exception.getMessage().contains("Failed to deserialize VehicleStay from protobuf"));
+    }
+}
@@ -1,21 +1,58 @@
 package org.example;
 
+import com.google.protobuf.Message;
+import io.confluent.kafka.schemaregistry.client.SchemaRegistryClient;
+import io.confluent.kafka.schemaregistry.protobuf.ProtobufSchema;
+import io.confluent.kafka.schemaregistry.protobuf.ProtobufSchemaProvider;
+import io.confluent.kafka.schemaregistry.testutil.MockSchemaRegistry;
+import io.confluent.kafka.serializers.protobuf.KafkaProtobufDeserializer;
 import org.apache.flink.types.Row;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import vehicle.objects.VehicleObjects;
 
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 class VehicleStayProtobufSerializerTest {
 
     private VehicleStayProtobufSerializer serializer;
 
+    private static final String REGISTRY_SCOPE = "vehicle-stay-serializer-test";
+    private static final String REGISTRY_URL = "mock://" + REGISTRY_SCOPE;
+    private static final String SUBJECT = "vehicle-stays-value";
+
     @BeforeEach
     void setUp() {
         serializer = new VehicleStayProtobufSerializer();
     }
 
+    @AfterEach
+    void tearDown() {
+        MockSchemaRegistry.dropScope(REGISTRY_SCOPE);
+    }
+
+    private static SchemaRegistryClient registryClient() {
+        return MockSchemaRegistry.getClientForScope(REGISTRY_SCOPE,
+            Collections.singletonList(new ProtobufSchemaProvider()));
+    }
+
+    private static Row simpleVehicleStayRow() {
+        Row objectRow = Row.of("alias", "namespace", "", "", "");
+        Row vehicleRow = Row.of("VIN123", "ABC-123", "", "", "", "", "", "");
+        Row trackableVehicleRow = Row.of(objectRow, "", "tenant", vehicleRow);
+        return Row.of(
+            objectRow, trackableVehicleRow, "tenant", "", "", "", "", "", "", "", "",
+            true, "Service", false, "", "", "", ""
+        );
+    }
+
     @Test
     void testSerializeCompleteVehicleStay() throws Exception {
         // Create test data that matches the expected Row structure
@@ -296,4 +333,118 @@ class VehicleStayProtobufSerializerTest {
         // Both should produce identical results
         assertArrayEquals(serialized1, serialized2, "Both serialization methods should produce identical results");
     }
-}
\ No newline at end of file
+
+    @Test
+    void testWireOutputMatchesGeneratedCode() {
+        // Empty sub-rows, a false BoolValue, false and empty defaults and non-ASCII text
+        Row objectRow = Row.of("alias-\u00e9", "", null, "2024-01-01T10:30:00Z", "corr-\u4e2d");
+        Row vehicleRow = Row.of("VIN123", null, "Jos\u00e9 \ud83d\ude97", "", "Lane-1", "", "", "ALT");
+        Row trackableVehicleRow = Row.of(Row.of(null, null, null, null, null), "", "tenant", vehicleRow);
+        Row vehicleStayRow = Row.of(
+            objectRow, trackableVehicleRow, "tenant", "", "Entry-Lane-A", null, "", "", "", "", "",
+            false, "Service", false, "", null, "2024-01-01T08:25:00Z", ""
+        );
+
+        VehicleObjects.VehicleStay expected = VehicleObjects.VehicleStay.newBuilder()
+            .setObject(VehicleObjects.Object.newBuilder()
+                .setAlias("alias-\u00e9")
+                .setUpdated("2024-01-01T10:30:00Z")
+                .setCorrelationId("corr-\u4e2d"))
+            .setTrackableVehicle(VehicleObjects.Trackable.newBuilder()
+                .setObject(VehicleObjects.Object.getDefaultInstance())
+                .setTenantAlias("tenant")
+                .setVehicle(VehicleObjects.Trackable.Vehicle.newBuilder()
+                    .setVehicleIdentificationNumber("VIN123")
+                    .setCustomerName("Jos\u00e9 \ud83d\ude97")
+                    .setLane("Lane-1")
+                    .setAlternativeVehicleIdentifier("ALT")))
+            .setTenantAlias("tenant")
+            .setEntryIdentifiedLane("Entry-Lane-A")
+            .setVehicleVisitReason("Service")
+            .setExternal(com.google.protobuf.BoolValue.of(false))
+            .setEntryExternalDriveDateTime("2024-01-01T08:25:00Z")
+            .build();
+
+        assertArrayEquals(expected.toByteArray(), serializer.eval(vehicleStayRow));
+    }
+
+    @Test
+    void testWireOutputIsCanonical() throws Exception {
+        for (Boolean external : new Boolean[] {null, false, true}) {
+            Row objectRow = Row.of("alias", "namespace", "created", "updated", "correlation");
+            Row vehicleRow = Row.of("VIN", "plate", "customer", "type", "lane", "model", "last", "alt");
+            Row trackableVehicleRow = Row.of(objectRow, "sync", "tenant", vehicleRow);
+            Row vehicleStayRow = Row.of(
+                objectRow, trackableVehicleRow, "tenant", "a", "b", "c", "d", "e", "f", "g", "h",
+                external == null, "reason", external, "i", "j", "k", "l"
+            );
+
+            byte[] result = serializer.eval(vehicleStayRow);
+            // Re-serializing with the generated code reproduces the exact same bytes
+            assertArrayEquals(VehicleObjects.VehicleStay.parseFrom(result).toByteArray(), result);
+        }
+    }
+
+    @Test
+    void testFramingWithExplicitSchemaId() throws Exception {
+        Row vehicleStayRow = simpleVehicleStayRow();
+        byte[] bare = serializer.eval(vehicleStayRow);
+
+        Map<String, String> parameters = new HashMap<>();
+        parameters.put(VehicleStayProtobufSerializer.SCHEMA_ID_PARAMETER, "258");
+        serializer.open(new TestFunctionContext(parameters));
+        byte[] result = serializer.eval(vehicleStayRow);
+
+        // Magic byte, schema id 258 as big-endian int, then the zigzag-encoded message indexes
+        int index = VehicleObjects.VehicleStay.getDescriptor().getIndex();
+        byte[] header = {0, 0, 0, 1, 2, 2, (byte) (2 * index)};
+        assertArrayEquals(header, Arrays.copyOf(result, header.length));
+        assertArrayEquals(bare, Arrays.copyOfRange(result, header.length, result.length));
+    }
+
+    @Test
+    void testFramingWithSchemaIdFromRegistry() throws Exception {
+        int schemaId = registryClient().register(SUBJECT, new ProtobufSchema(VehicleObjects.VehicleStay.getDescriptor()));
+
+        Map<String, String> parameters = new HashMap<>();
+        parameters.put(VehicleStayProtobufSerializer.SCHEMA_REGISTRY_URL_PARAMETER, REGISTRY_URL);
+        parameters.put(VehicleStayProtobufSerializer.SUBJECT_PARAMETER, SUBJECT);
+        serializer.open(new TestFunctionContext(parameters));
+        byte[] result = serializer.eval(simpleVehicleStayRow());
+
+        assertEquals(0, result[0]);
+        assertEquals(schemaId, ByteBuffer.wrap(result, 1, 4).getInt());
+
+        // Consumers using the Confluent deserializer get a VehicleStay back
+        Map<String, Object> deserializerConfig = new HashMap<>();
+        deserializerConfig.put("schema.registry.url", REGISTRY_URL);
+        KafkaProtobufDeserializer<Message> deserializer = new KafkaProtobufDeserializer<>(registryClient(), deserializerConfig);
+        Message message = deserializer.deserialize("vehicle-stays", result);
+        assertEquals("vehicle.objects.VehicleStay", message.getDescriptorForType().getFullName());
+        VehicleObjects.VehicleStay deserialized = VehicleObjects.VehicleStay.parseFrom(message.toByteArray());
+        assertEquals("tenant", deserialized.getTenantAlias());
+        assertEquals("VIN123", deserialized.getTrackableVehicle().getVehicle().getVehicleIdentificationNumber());
+    }
+
+    @Test
+    void testFramingWithAutoRegisteredSchema() throws Exception {
+        Map<String, String> parameters = new HashMap<>();
+        parameters.put(VehicleStayProtobufSerializer.SCHEMA_REGISTRY_URL_PARAMETER, REGISTRY_URL);
+        parameters.put(VehicleStayProtobufSerializer.AUTO_REGISTER_PARAMETER, "true");
+        serializer.open(new TestFunctionContext(parameters));
+        byte[] result = serializer.eval(simpleVehicleStayRow());
+
+        // Registered under the default subject, the message's full name
+        int schemaId = registryClient().getLatestSchemaMetadata("vehicle.objects.VehicleStay").getId();
+        assertEquals(schemaId, ByteBuffer.wrap(result, 1, 4).getInt());
+    }
+
+    @Test
+    void testUnregisteredSchemaFailsOnOpen() {
+        Map<String, String> parameters = new HashMap<>();
+        parameters.put(VehicleStayProtobufSerializer.SCHEMA_REGISTRY_URL_PARAMETER, REGISTRY_URL);
+        parameters.put(VehicleStayProtobufSerializer.SUBJECT_PARAMETER, SUBJECT);
+
+        assertThrows(Exception.class, () -> serializer.open(new TestFunctionContext(parameters)));
+    }
+}
@@ -11,4 +11,4 @@ plugins {
 }
 
 rootProject.name = "flink-udf-init"
-include("scalar", "table")
+include("common", "scalar", "table", "benchmark")
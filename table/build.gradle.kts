@@ -22,6 +22,7 @@ base.archivesName.set("table-udf") // Controls the JAR filename
 
 dependencies {
 
+    implementation(project(":common"))
     implementation(libs.bundles.flink)
     implementation(libs.bundles.log4j)
 
@@ -41,7 +42,8 @@ val shadowJar: ShadowJar by tasks
 shadowJar.apply {
     //mergeServiceFiles()
     dependencies{
-        exclude(dependency(".*:.*:.*"))
+        // only bundle the shared helpers, everything else is provided by the runtime
+        include(project(":common"))
         //exclude(dependency("org.apache.flink:.*:.*"))
         // cannot handle the libs.bundle.logging or libs.slf4j notation
         //include(dependency("ch.qos.logback:logback-core:1.5.15"))
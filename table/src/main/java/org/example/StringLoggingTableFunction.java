@@ -2,6 +2,7 @@ package org.example;
 
 import org.apache.flink.table.annotation.DataTypeHint;
 import org.apache.flink.table.annotation.FunctionHint;
+import org.apache.flink.table.functions.FunctionContext;
 import org.apache.flink.table.functions.TableFunction;
 import org.apache.flink.types.Row;
 import org.apache.logging.log4j.LogManager;
@@ -12,17 +13,66 @@ public class StringLoggingTableFunction extends TableFunction<Row> {
 
     private static final Logger LOGGER = LogManager.getLogger();
 
+    /** Name of the function's metric group, see {@link UdfMetrics}. */
+    public static final String NAME = "StringLoggingTableFunction";
+
+    /** Emit through one reused Row, see {@link TextExtractorFunction#OBJECT_REUSE_PARAMETER}. */
+    public static final String OBJECT_REUSE_PARAMETER = "string-logging.object-reuse";
+
+    /** Job parameter prefix of the {@link SampledLogger} settings, e.g. {@code string-logging.log.rate-limit}. */
+    public static final String LOG_PREFIX = "string-logging";
+
+    // every row is logged at all six levels, so the output can be sampled and rate limited
+    private transient SampledLogger log;
+    private final UdfMetrics.Lazy metrics = UdfMetrics.lazy(NAME);
+    private transient boolean objectReuse;
+    private transient Row reusedRow;
+
+    @Override
+    public void open(FunctionContext context) throws Exception {
+        objectReuse = Boolean.parseBoolean(context.getJobParameter(OBJECT_REUSE_PARAMETER, "false"));
+        log = SampledLogger.open(context, LOG_PREFIX, LOGGER);
+        metrics.open(context);
+    }
+
+    @Override
+    public void close() throws Exception {
+        if (log != null) {
+            log.close();
+        }
+    }
+
+    private SampledLogger getLog() {
+        if (log == null) {
+            log = SampledLogger.withDefaults(LOGGER);
+        }
+        return log;
+    }
+
     public void eval(String input) {
+        UdfMetrics metrics = this.metrics.get();
+        long start = metrics.start();
+        SampledLogger log = getLog();
         if (input == null || input.isEmpty()) {
-            LOGGER.warn("Input is null or empty");
+            metrics.nullInput(start);
+            log.warn("Input is null or empty");
             return;
         }
-        LOGGER.trace(" TRACE: input {} ", input);
-        LOGGER.debug(" DEBUG: input {} ", input);
-        LOGGER.info(" INFO: input {} ", input);
-        LOGGER.warn(" WARN: input {} ", input);
-        LOGGER.error(" ERROR: input {} ", input);
-        LOGGER.fatal(" FATAL: input {} ", input);
-        collect(Row.of(input));
+        log.trace(" TRACE: input {} ", input);
+        log.debug(" DEBUG: input {} ", input);
+        log.info(" INFO: input {} ", input);
+        log.warn(" WARN: input {} ", input);
+        log.error(" ERROR: input {} ", input);
+        log.fatal(" FATAL: input {} ", input);
+        if (!objectReuse) {
+            collect(Row.of(input));
+        } else {
+            if (reusedRow == null) {
+                reusedRow = Row.withPositions(1);
+            }
+            reusedRow.setField(0, input);
+            collect(reusedRow);
+        }
+        metrics.finish(start, input.length(), 1);
     }
 }
\ No newline at end of file
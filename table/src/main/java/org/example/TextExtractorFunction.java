@@ -2,39 +2,236 @@ package org.example;
 
 import org.apache.flink.table.annotation.DataTypeHint;
 import org.apache.flink.table.annotation.FunctionHint;
+import org.apache.flink.table.functions.FunctionContext;
 import org.apache.flink.table.functions.TableFunction;
 import org.apache.flink.types.Row;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.regex.Pattern;
+
 @FunctionHint(output = @DataTypeHint("ROW<word STRING, length INT>"))
 public class TextExtractorFunction extends TableFunction<Row> {
 
     private static final Logger LOGGER = LogManager.getLogger();
 
+    /** Name of the function's metric group, see {@link UdfMetrics}. */
+    public static final String NAME = "TextExtractorFunction";
+
+    /**
+     * Emit every word through one reused Row instead of a new Row per word. The planner converts each
+     * collected Row to its internal format right away, so this is safe in SQL and the Table API, but
+     * not for callers that keep the collected Rows themselves.
+     */
+    public static final String OBJECT_REUSE_PARAMETER = "text-extractor.object-reuse";
+
+    private static final int MAX_CACHED_PATTERNS = 16;
+
+    private static final String REGEX_METACHARACTERS = ".$|()[]{}^?*+\\";
+
+    // reused for every word; the function is not called concurrently
+    private transient StringBuilder word;
+
+    private transient boolean objectReuse;
+    private transient Row reusedRow;
+    // autoboxing only caches lengths up to 127, so a longer one is kept while words repeat it
+    private transient Integer lastLength;
+
+    // the delimiter is usually a constant, so the last one is checked first;
+    // plain literals are split with indexOf, everything else with a cached Pattern
+    private transient String lastRegex;
+    private transient String lastLiteral;
+    private transient Pattern lastPattern;
+    private transient Map<String, Pattern> patterns;
+
+    private final UdfMetrics.Lazy metrics = UdfMetrics.lazy(NAME);
+
+    @Override
+    public void open(FunctionContext context) throws Exception {
+        objectReuse = Boolean.parseBoolean(context.getJobParameter(OBJECT_REUSE_PARAMETER, "false"));
+        LOGGER.debug("Object reuse {}", objectReuse ? "enabled" : "disabled");
+        metrics.open(context);
+    }
+
+    /**
+     * Emits the words of {@code input} in one pass, exactly as
+     * {@code input.replaceAll("[^a-zA-Z0-9\\s]", "").split("\\s+")} would return them:
+     * characters other than ASCII letters, digits and whitespace are dropped without splitting words,
+     * leading whitespace yields one empty word, and input without letters, digits or whitespace yields
+     * a single empty word.
+     */
     public void eval(String input) {
+        UdfMetrics metrics = this.metrics.get();
+        long start = metrics.start();
         if (input == null || input.isEmpty()) {
+            metrics.nullInput(start);
             LOGGER.debug("Input is null or empty");
             return;
         }
-        String[] words = input.replaceAll("[^a-zA-Z0-9\\s]", "").split("\\s+");
-        LOGGER.debug("Extracted {} words from input string.", words.length);
-        for (String word : words) {
-            collect(Row.of(word, word.length()));
+        if (word == null) {
+            word = new StringBuilder();
         }
+        word.setLength(0);
+        int words = 0;
+        boolean sawWhitespace = false;
+        boolean inWhitespace = false;
+        // split() only keeps a leading empty word if a non-empty one follows
+        boolean leadingEmptyWord = false;
+        for (int i = 0; i < input.length(); i++) {
+            char c = input.charAt(i);
+            if (isWhitespace(c)) {
+                if (!inWhitespace) {
+                    if (word.length() > 0) {
+                        collectWord(word.toString());
+                        words++;
+                        word.setLength(0);
+                    } else if (!sawWhitespace) {
+                        leadingEmptyWord = true;
+                    }
+                    sawWhitespace = true;
+                    inWhitespace = true;
+                }
+            } else if (isLetterOrDigit(c)) {
+                if (leadingEmptyWord) {
+                    collectWord("");
+                    words++;
+                    leadingEmptyWord = false;
+                }
+                word.append(c);
+                inWhitespace = false;
+            }
+        }
+        if (word.length() > 0) {
+            collectWord(word.toString());
+            words++;
+        } else if (!sawWhitespace) {
+            collectWord("");
+            words++;
+        }
+        metrics.finish(start, input.length(), words);
+        LOGGER.debug("Extracted {} words from input string.", words);
     }
 
     public void eval(String input, String regexString) {
+        UdfMetrics metrics = this.metrics.get();
+        long start = metrics.start();
         if (input == null || input.isEmpty()) {
+            metrics.nullInput(start);
             LOGGER.debug("Input is null or empty");
             return;
         }
-        String[] words = input.split(regexString);
-        LOGGER.debug("Extracted {} words from input string using regex: {}", words.length, regexString);
-        for (String word : words) {
-            if (!word.isEmpty()) {
-                collect(Row.of(word, word.length()));
+        if (!regexString.equals(lastRegex)) {
+            lastLiteral = literalOf(regexString);
+            lastPattern = lastLiteral == null ? getPattern(regexString) : null;
+            lastRegex = regexString;
+        }
+        int words = 0;
+        if (lastLiteral != null) {
+            words = splitLiteral(input, lastLiteral);
+        } else {
+            for (String word : lastPattern.split(input)) {
+                if (!word.isEmpty()) {
+                    collectWord(word);
+                    words++;
+                }
             }
         }
+        metrics.finish(start, input.length(), words);
+        LOGGER.debug("Extracted {} words from input string using regex: {}", words, regexString);
+    }
+
+    /**
+     * Same words as splitting on the regex, as empty ones are left out either way.
+     */
+    private int splitLiteral(String input, String delimiter) {
+        int words = 0;
+        int start = 0;
+        int end;
+        while ((end = input.indexOf(delimiter, start)) >= 0) {
+            if (end > start) {
+                collectWord(input.substring(start, end));
+                words++;
+            }
+            start = end + delimiter.length();
+        }
+        if (start < input.length()) {
+            collectWord(input.substring(start));
+            words++;
+        }
+        return words;
+    }
+
+    private Pattern getPattern(String regex) {
+        if (patterns == null) {
+            patterns = new LinkedHashMap<>(MAX_CACHED_PATTERNS, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Pattern> eldest) {
+                    return size() > MAX_CACHED_PATTERNS;
+                }
+            };
+        }
+        Pattern pattern = patterns.get(regex);
+        if (pattern == null) {
+            LOGGER.debug("compiling regex {}", regex);
+            pattern = Pattern.compile(regex);
+            patterns.put(regex, pattern);
+        }
+        return pattern;
+    }
+
+    /**
+     * The text a regex matches if it is a plain literal, such as {@code ","}, {@code "##"},
+     * {@code "\\|"} or {@code "\\Q.*\\E"}; null otherwise.
+     */
+    private static String literalOf(String regex) {
+        if (regex.length() == 2 && regex.charAt(0) == '\\' && !Character.isLetterOrDigit(regex.charAt(1))) {
+            // an escaped character, e.g. \. or \|
+            return regex.substring(1);
+        }
+        if (regex.startsWith("\\Q") && regex.endsWith("\\E") && regex.length() >= 4
+                && regex.indexOf("\\E") == regex.length() - 2) {
+            String quoted = regex.substring(2, regex.length() - 2);
+            return quoted.isEmpty() ? null : quoted;
+        }
+        if (regex.isEmpty()) {
+            return null;
+        }
+        for (int i = 0; i < regex.length(); i++) {
+            if (REGEX_METACHARACTERS.indexOf(regex.charAt(i)) >= 0) {
+                return null;
+            }
+        }
+        return regex;
+    }
+
+    private void collectWord(String text) {
+        if (!objectReuse) {
+            collect(Row.of(text, text.length()));
+            return;
+        }
+        if (reusedRow == null) {
+            reusedRow = Row.withPositions(2);
+        }
+        reusedRow.setField(0, text);
+        reusedRow.setField(1, boxedLength(text.length()));
+        collect(reusedRow);
+    }
+
+    private Integer boxedLength(int length) {
+        if (lastLength == null || lastLength != length) {
+            lastLength = length;
+        }
+        return lastLength;
+    }
+
+    /** The characters of the regex class {@code \s}. */
+    private static boolean isWhitespace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+    }
+
+    private static boolean isLetterOrDigit(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9');
     }
-}
\ No newline at end of file
+}
@@ -1,11 +1,16 @@
 package org.example;
 
+import org.apache.flink.table.functions.FunctionContext;
 import org.apache.flink.types.Row;
 import org.apache.flink.util.Collector;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
 
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.Mockito.*;
 
 public class StringLoggingTableFunctionTest {
@@ -45,4 +50,23 @@ public class StringLoggingTableFunctionTest {
         // Verify that collect was never called for a null string
         verify(collector, never()).collect(any());
     }
-}
+
+    @Test
+    public void testEvalWithObjectReuse() throws Exception {
+        FunctionContext context = Mockito.mock(FunctionContext.class);
+        when(context.getJobParameter(StringLoggingTableFunction.OBJECT_REUSE_PARAMETER, "false")).thenReturn("true");
+        loggingFunction.open(context);
+
+        // Like the planner, copy each Row when it is collected
+        List<Row> results = new ArrayList<>();
+        doAnswer(invocation -> {
+            results.add(Row.copy(invocation.getArgument(0)));
+            return null;
+        }).when(collector).collect(any(Row.class));
+
+        loggingFunction.eval("first");
+        loggingFunction.eval("second");
+
+        assertEquals(List.of(Row.of("first"), Row.of("second")), results);
+    }
+}
\ No newline at end of file
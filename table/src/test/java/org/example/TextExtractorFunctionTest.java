@@ -1,5 +1,6 @@
 package org.example;
 
+import org.apache.flink.table.functions.FunctionContext;
 import org.apache.flink.types.Row;
 import org.apache.flink.util.Collector;
 import org.junit.jupiter.api.BeforeEach;
@@ -8,8 +9,10 @@ import org.mockito.Mockito;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Random;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
 
 public class TextExtractorFunctionTest {
 
@@ -104,4 +107,136 @@ public class TextExtractorFunctionTest {
         assertEquals(Row.of("two", 3), results.get(1));
         assertEquals(Row.of("three", 5), results.get(2));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testEvalEdgeCases() {
+        List<Row> results = new ArrayList<>();
+        Mockito.doAnswer(invocation -> {
+            Row row = invocation.getArgument(0);
+            results.add(row);
+            return null;
+        }).when(collector).collect(Mockito.any(Row.class));
+
+        // Dropped characters join words, leading whitespace yields an empty word, trailing does not
+        textExtractorFunction.eval(" don't\t\tstop! ");
+        assertEquals(List.of(Row.of("", 0), Row.of("dont", 4), Row.of("stop", 4)), results);
+
+        // Only whitespace: no words; no letters, digits or whitespace at all: one empty word
+        results.clear();
+        textExtractorFunction.eval(" \n ");
+        assertEquals(0, results.size());
+        textExtractorFunction.eval("?!");
+        assertEquals(List.of(Row.of("", 0)), results);
+    }
+
+    @Test
+    public void testEvalMatchesRegexTokenizer() {
+        List<Row> results = new ArrayList<>();
+        Mockito.doAnswer(invocation -> {
+            Row row = invocation.getArgument(0);
+            results.add(row);
+            return null;
+        }).when(collector).collect(Mockito.any(Row.class));
+
+        // Letters, digits, regex whitespace, other whitespace and punctuation, and a surrogate pair
+        String[] pieces = {"a", "Z", "7", " ", "  ", "\t", "\n", "\r", "\u000B", "\f", "\u00A0", "\u2003",
+            ",", "!", "'", "-", "_", "\u00e9", "\u00DF", "\ud83d\ude97", "ab", "12"};
+        Random random = new Random(42);
+        for (int n = 0; n < 5000; n++) {
+            StringBuilder input = new StringBuilder();
+            int length = 1 + random.nextInt(12);
+            for (int i = 0; i < length; i++) {
+                input.append(pieces[random.nextInt(pieces.length)]);
+            }
+
+            List<Row> expected = new ArrayList<>();
+            for (String word : input.toString().replaceAll("[^a-zA-Z0-9\\s]", "").split("\\s+")) {
+                expected.add(Row.of(word, word.length()));
+            }
+            results.clear();
+            textExtractorFunction.eval(input.toString());
+
+            assertEquals(expected, results, "for input '" + input + "'");
+        }
+    }
+
+    @Test
+    public void testEvalWithRegexMatchesStringSplit() {
+        List<Row> results = new ArrayList<>();
+        Mockito.doAnswer(invocation -> {
+            Row row = invocation.getArgument(0);
+            results.add(row);
+            return null;
+        }).when(collector).collect(Mockito.any(Row.class));
+
+        // Plain literals take the indexOf path, the others a cached Pattern; alternating them
+        // exercises switching between both
+        String[] regexes = {",", "##", "ab", "\\|", "\\.", "\\\\", "\\Q.*\\E", "[\\s,]+", "", "a*", "(#)", ", "};
+        String[] pieces = {"a", "b", "ab", ",", "#", "##", "|", ".", "*", "\\", " ", "x", "\u00e9"};
+        Random random = new Random(7);
+        for (int n = 0; n < 5000; n++) {
+            String regex = regexes[random.nextInt(regexes.length)];
+            StringBuilder input = new StringBuilder();
+            int length = 1 + random.nextInt(10);
+            for (int i = 0; i < length; i++) {
+                input.append(pieces[random.nextInt(pieces.length)]);
+            }
+
+            List<Row> expected = new ArrayList<>();
+            for (String word : input.toString().split(regex)) {
+                if (!word.isEmpty()) {
+                    expected.add(Row.of(word, word.length()));
+                }
+            }
+            results.clear();
+            textExtractorFunction.eval(input.toString(), regex);
+
+            assertEquals(expected, results, "for input '" + input + "' and regex '" + regex + "'");
+        }
+    }
+
+    @Test
+    public void testEvalWithObjectReuse() throws Exception {
+        FunctionContext context = Mockito.mock(FunctionContext.class);
+        Mockito.when(context.getJobParameter(TextExtractorFunction.OBJECT_REUSE_PARAMETER, "false")).thenReturn("true");
+        textExtractorFunction.open(context);
+
+        // Like the planner, copy each Row when it is collected
+        List<Row> results = new ArrayList<>();
+        List<Row> collected = new ArrayList<>();
+        Mockito.doAnswer(invocation -> {
+            Row row = invocation.getArgument(0);
+            collected.add(row);
+            results.add(Row.copy(row));
+            return null;
+        }).when(collector).collect(Mockito.any(Row.class));
+
+        textExtractorFunction.eval("hello, world! 123");
+        textExtractorFunction.eval("apple,banana", ",");
+
+        assertEquals(List.of(Row.of("hello", 5), Row.of("world", 5), Row.of("123", 3),
+            Row.of("apple", 5), Row.of("banana", 6)), results);
+        for (Row row : collected) {
+            assertSame(collected.get(0), row);
+        }
+    }
+
+    @Test
+    public void testObjectReuseBoxesARepeatedLengthOnce() throws Exception {
+        FunctionContext context = Mockito.mock(FunctionContext.class);
+        Mockito.when(context.getJobParameter(TextExtractorFunction.OBJECT_REUSE_PARAMETER, "false")).thenReturn("true");
+        textExtractorFunction.open(context);
+
+        List<Object> lengths = new ArrayList<>();
+        Mockito.doAnswer(invocation -> {
+            lengths.add(((Row) invocation.getArgument(0)).getField(1));
+            return null;
+        }).when(collector).collect(Mockito.any(Row.class));
+
+        String word = "a".repeat(200);
+        textExtractorFunction.eval(word + " " + word.toUpperCase() + " b");
+
+        assertEquals(List.of(200, 200, 1), lengths);
+        assertSame(lengths.get(0), lengths.get(1));
+    }
+}